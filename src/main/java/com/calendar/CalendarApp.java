@@ -3,6 +3,8 @@ package com.calendar;
 import java.io.IOException;
 
 import com.calendar.database.DatabaseManager;
+import com.calendar.service.ReminderEngine;
+import com.calendar.service.SessionService;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -23,10 +25,17 @@ public class CalendarApp extends Application {
         // Khởi tạo database
         DatabaseManager.getInstance();
         
-        // Hiển thị màn hình đăng nhập
-        showLoginScreen();
+        // Thiết bị đã được ghi nhớ: vào thẳng màn hình chính, không cần BCrypt
+        Integer rememberedUserId = new SessionService().resumeSession();
+        if (rememberedUserId != null) {
+            showMainScreen(rememberedUserId);
+        } else {
+            // Hiển thị màn hình đăng nhập
+            showLoginScreen();
+        }
         
         primaryStage.setOnCloseRequest(event -> {
+            ReminderEngine.shutdown();
             DatabaseManager.getInstance().closeConnection();
             System.exit(0);
         });
@@ -77,7 +86,6 @@ public class CalendarApp extends Application {
             // Truyền userId vào controller
             com.calendar.controller.MainController controller = loader.getController();
             controller.setUserId(userId);
-            controller.loadSchedules();
             
             Scene scene = new Scene(root, 1200, 700);
             scene.getStylesheets().add(CalendarApp.class.getResource("/css/style.css").toExternalForm());
@@ -1,8 +1,14 @@
 package com.calendar.controller;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import com.calendar.CalendarApp;
 import com.calendar.model.User;
+import com.calendar.service.AsyncUserService;
+import com.calendar.service.SessionService;
 import com.calendar.service.UserService;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
@@ -13,12 +19,15 @@ public class LoginController {
     @FXML private Label messageLabel;
     @FXML private Button loginButton;
     @FXML private Hyperlink registerLink;
+    @FXML private CheckBox rememberDeviceCheckBox;
 
-    private UserService userService;
+    private AsyncUserService asyncUserService;
 
     @FXML
     public void initialize() {
-        userService = new UserService();
+        asyncUserService = new AsyncUserService(new UserService());
+        // Hiệu chỉnh BCrypt trong lúc người dùng đang nhập
+        asyncUserService.warmUp();
         
         // Enter để đăng nhập
         passwordField.setOnAction(event -> handleLogin());
@@ -26,6 +35,9 @@ public class LoginController {
 
     @FXML
     private void handleLogin() {
+        if (loginButton.isDisable()) {
+            return; // Đang đăng nhập (Enter được nhấn lại)
+        }
         String username = usernameField.getText().trim();
         String password = passwordField.getText();
 
@@ -39,24 +51,35 @@ public class LoginController {
         loginButton.setDisable(true);
         messageLabel.setText("Đang đăng nhập...");
 
-        // Thực hiện đăng nhập
-        User user = userService.login(username, password);
+        // Thực hiện đăng nhập trên thread nền (BCrypt), cửa sổ vẫn phản hồi
+        asyncUserService.login(username, password).whenComplete((user, error) ->
+            Platform.runLater(() -> onLoginCompleted(user, error)));
+    }
 
-        if (user != null) {
+    @SuppressWarnings("CallToPrintStackTrace")
+    private void onLoginCompleted(User user, Throwable error) {
+        if (error != null) {
+            // Lỗi database/BCrypt: không báo sai mật khẩu, giữ nguyên mật khẩu để thử lại
+            error.printStackTrace();
+            showMessage("Không thể đăng nhập do lỗi hệ thống, vui lòng thử lại!", "error");
+            loginButton.setDisable(false);
+        } else if (user != null) {
             showMessage("Đăng nhập thành công!", "success");
-            
-            // Chuyển sang màn hình chính sau 500ms
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500);
-                    javafx.application.Platform.runLater(() -> {
-                        CalendarApp.showMainScreen(user.getId());
-                    });
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+
+            CompletableFuture<Boolean> session = rememberDeviceCheckBox.isSelected()
+                    ? asyncUserService.submit(() -> new SessionService().createSession(user.getId()))
+                    : CompletableFuture.completedFuture(true);
+            CompletableFuture<Void> delay = CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(500, TimeUnit.MILLISECONDS));
+
+            // Chuyển sang màn hình chính sau 500ms, nhưng chỉ khi phiên đã được lưu xong
+            CompletableFuture.allOf(session, delay).whenComplete((ignored, sessionError) -> Platform.runLater(() -> {
+                if (sessionError != null || !session.join()) {
+                    System.err.println("Không ghi nhớ được thiết bị, lần sau cần đăng nhập lại");
                 }
-            }).start();
-            
+                CalendarApp.showMainScreen(user.getId());
+            }));
+
         } else {
             showMessage("Sai tên đăng nhập hoặc mật khẩu!", "error");
             loginButton.setDisable(false);
@@ -1,19 +1,36 @@
 package com.calendar.controller;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.UnaryOperator;
 
 import com.calendar.CalendarApp;
+import com.calendar.model.Recurrence;
 import com.calendar.model.Schedule;
+import com.calendar.model.ScheduleQuery;
+import com.calendar.model.ScheduleSearchResult;
+import com.calendar.model.ScheduleSummary;
+import com.calendar.service.AsyncScheduleService;
 import com.calendar.service.NotificationService;
+import com.calendar.service.SchedulePager;
 import com.calendar.service.ScheduleService;
+import com.calendar.service.ScheduleStore;
+import com.calendar.service.SearchPipeline;
+import com.calendar.service.SessionService;
 import com.calendar.service.UserService;
+import com.calendar.util.ListDiff;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -26,7 +43,9 @@ import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Dialog;
+import javafx.scene.control.IndexedCell;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
@@ -34,8 +53,11 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextFormatter;
+import javafx.scene.control.Tooltip;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
 import javafx.util.converter.IntegerStringConverter;
 
 @SuppressWarnings("unused")
@@ -43,14 +65,16 @@ public class MainController {
 
     @FXML private Label welcomeLabel;
     @FXML private DatePicker datePicker;
+    @FXML private ComboBox<String> viewModeFilter;
     @FXML private TextField searchField;
     @FXML private ComboBox<String> categoryFilter;
-    @FXML private TableView<Schedule> scheduleTable;
-    @FXML private TableColumn<Schedule, String> titleColumn;
-    @FXML private TableColumn<Schedule, String> timeColumn;
-    @FXML private TableColumn<Schedule, String> categoryColumn;
-    @FXML private TableColumn<Schedule, Boolean> reminderColumn;
+    @FXML private TableView<ScheduleSummary> scheduleTable;
+    @FXML private TableColumn<ScheduleSummary, String> titleColumn;
+    @FXML private TableColumn<ScheduleSummary, String> timeColumn;
+    @FXML private TableColumn<ScheduleSummary, String> categoryColumn;
+    @FXML private TableColumn<ScheduleSummary, Boolean> reminderColumn;
     @FXML private TextArea detailsArea;
+    @FXML private ProgressIndicator loadingIndicator;
     @FXML private Button addButton;
     @FXML private Button editButton;
     @FXML private Button deleteButton;
@@ -58,22 +82,38 @@ public class MainController {
 
     private int currentUserId;
     private ScheduleService scheduleService;
+    private AsyncScheduleService asyncScheduleService;
     private UserService userService;
     private NotificationService notificationService;
-    private ObservableList<Schedule> scheduleList;
+    private ObservableList<ScheduleSummary> scheduleList; // chỉ tóm tắt, chi tiết đọc khi chọn dòng
+    private final Map<Integer, String> searchSnippets = new HashMap<>(); // id lịch -> đoạn trích khớp từ khóa
+    private SearchPipeline<ScheduleQuery, QueryResult> searchPipeline;
+    private static final long SEARCH_DEBOUNCE_MS = Long.getLong("calendar.search.debounceMs", 250);
+    private static final int SEARCH_MAX_RESULTS = Integer.getInteger("calendar.search.maxResults", 500);
+
+    // Phân trang khi cuộn cho truy vấn không giới hạn thời gian; null khi kết quả không phân trang
+    private SchedulePager activePager;
+    private boolean moreBefore;
+    private boolean moreAfter;
+    private boolean pageLoading;
+    private VirtualFlow<?> tableFlow;
     @SuppressWarnings("FieldMayBeFinal")
     private DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy");
 
     @FXML
     public void initialize() {
         scheduleService = new ScheduleService();
+        asyncScheduleService = new AsyncScheduleService(scheduleService);
+        searchPipeline = createSearchPipeline();
         userService = new UserService();
         notificationService = new NotificationService(scheduleService);
         scheduleList = FXCollections.observableArrayList();
 
         setupTable();
         setupCategoryFilter();
+        setupViewModeFilter();
         setupListeners();
+        searchField.setTooltip(new Tooltip());
 
         datePicker.setValue(LocalDate.now());
         
@@ -91,17 +131,22 @@ public class MainController {
     }
 
     private void setupTable() {
-        titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
+        titleColumn.setCellValueFactory(cellData -> {
+            ScheduleSummary schedule = cellData.getValue();
+            // Đánh dấu lịch lặp (chuỗi hoặc một lần lặp)
+            String title = schedule.getRecurrence() != null ? schedule.getTitle() + " ↻" : schedule.getTitle();
+            return new javafx.beans.property.SimpleStringProperty(title);
+        });
         categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
 
         timeColumn.setCellValueFactory(cellData -> {
-            Schedule schedule = cellData.getValue();
+            ScheduleSummary schedule = cellData.getValue();
             String timeStr = schedule.getStartTime().format(timeFormatter);
             return new javafx.beans.property.SimpleStringProperty(timeStr);
         });
 
         reminderColumn.setCellValueFactory(new PropertyValueFactory<>("reminder"));
-        reminderColumn.setCellFactory(column -> new TableCell<Schedule, Boolean>() {
+        reminderColumn.setCellFactory(column -> new TableCell<ScheduleSummary, Boolean>() {
             @Override
             protected void updateItem(Boolean item, boolean empty) {
                 super.updateItem(item, empty);
@@ -114,6 +159,12 @@ public class MainController {
         });
 
         scheduleTable.setItems(scheduleList);
+        scheduleTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin != null && scheduleTable.lookup(".virtual-flow") instanceof VirtualFlow<?> flow) {
+                tableFlow = flow;
+                flow.positionProperty().addListener((o, oldPos, newPos) -> loadPageIfNeeded());
+            }
+        });
 
         scheduleTable.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldSelection, newSelection) -> {
@@ -137,15 +188,48 @@ public class MainController {
         categoryFilter.setValue("Tất cả");
     }
 
+    private void setupViewModeFilter() {
+        viewModeFilter.setItems(FXCollections.observableArrayList("Ngày", "Tuần", "Tháng"));
+        viewModeFilter.setValue("Ngày");
+    }
+
     private void setupListeners() {
-        datePicker.setOnAction(e -> filterSchedules());
-        categoryFilter.setOnAction(e -> filterSchedules());
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> filterSchedules());
+        datePicker.setOnAction(e -> filterSchedules(false));
+        viewModeFilter.setOnAction(e -> filterSchedules(false));
+        categoryFilter.setOnAction(e -> filterSchedules(false));
+        // Gõ phím được gộp lại, chỉ truy vấn khi người dùng ngừng gõ
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> filterSchedules(true));
     }
 
     public void loadSchedules() {
-        List<Schedule> schedules = scheduleService.getAllSchedulesByUser(currentUserId);
-        scheduleList.setAll(schedules);
+        loadingIndicator.setVisible(true);
+        searchPipeline.submitNow(ScheduleQuery.forUser(currentUserId).build());
+    }
+
+    /**
+     * Tạo pipeline cho mọi truy vấn danh sách: gõ từ khóa được debounce, chọn ngày/danh mục
+     * chạy ngay; truy vấn cũ bị hủy và kết quả cũ không bao giờ ghi đè kết quả mới hơn
+     */
+    private SearchPipeline<ScheduleQuery, QueryResult> createSearchPipeline() {
+        return new SearchPipeline<>(
+            SEARCH_DEBOUNCE_MS,
+            query -> asyncScheduleService.submit(() -> queryFilteredSchedules(query)),
+            Platform::runLater,
+            result -> {
+                loadingIndicator.setVisible(false);
+                searchSnippets.clear();
+                searchSnippets.putAll(result.snippets());
+                activePager = result.pager();
+                moreBefore = false;
+                moreAfter = result.moreAfter();
+                pageLoading = false;
+                showScheduleList(result.schedules());
+                searchField.getTooltip().setText("Tìm kiếm: " + searchPipeline.getMetrics());
+            },
+            error -> {
+                loadingIndicator.setVisible(false);
+                System.err.println("Lỗi khi tải danh sách lịch: " + error.getMessage());
+            });
     }
 @FXML
 private void handleResetFilter() {
@@ -159,71 +243,261 @@ private void handleResetFilter() {
 }
 
     /**
-     * TÌM KIẾM THÔNG MINH - Query trực tiếp từ database
+     * Cập nhật bảng bằng các thao tác chèn/xóa/thay tối thiểu theo id thay vì setAll,
+     * để bảng không dựng lại mọi dòng và người dùng giữ được dòng đang chọn
      */
-    private void filterSchedules() {
+    private void showScheduleList(List<ScheduleSummary> schedules) {
+        ScheduleSummary selected = scheduleTable.getSelectionModel().getSelectedItem();
+        ListDiff.Stats stats = ListDiff.apply(scheduleList, schedules,
+                                              ScheduleSummary::getRowKey, ScheduleSummary::hasSameContent);
+        if (selected == null) {
+            return;
+        }
+
+        ScheduleSummary current = scheduleTable.getSelectionModel().getSelectedItem();
+        if (current != null && current.getRowKey().equals(selected.getRowKey())) {
+            return;
+        }
+        for (int i = 0; i < scheduleList.size(); i++) {
+            if (scheduleList.get(i).getRowKey().equals(selected.getRowKey())) {
+                scheduleTable.getSelectionModel().clearAndSelect(i);
+                if (stats.reset()) {
+                    scheduleTable.scrollTo(i);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * TÌM KIẾM THÔNG MINH - Query trực tiếp từ database (chạy nền)
+     */
+    private void filterSchedules(boolean debounce) {
         LocalDate selectedDate = datePicker.getValue();
+
         String category = categoryFilter.getValue();
-        String keyword = searchField.getText().trim();
-
-        List<Schedule> filteredSchedules;
-
-        // TH1: Có từ khóa tìm kiếm - Dùng searchSchedules() từ database
-        if (!keyword.isEmpty()) {
-            filteredSchedules = scheduleService.searchSchedules(currentUserId, keyword);
-            
-            // Sau đó filter thêm theo date và category (vì search chỉ filter keyword)
-            if (selectedDate != null) {
-                filteredSchedules = filteredSchedules.stream()
-                    .filter(s -> s.getStartTime().toLocalDate().equals(selectedDate))
-                    .toList();
-            }
-            
-            if (category != null && !category.equals("Tất cả")) {
-                filteredSchedules = filteredSchedules.stream()
-                    .filter(s -> s.getCategory().equals(category))
-                    .toList();
-            }
+
+        ScheduleQuery.Builder query = ScheduleQuery.forUser(currentUserId)
+            .keyword(searchField.getText().trim());
+        if (selectedDate != null) {
+            // Khoảng thời gian của chế độ xem ngày/tuần/tháng chứa ngày được chọn
+            query.between(getViewStart(selectedDate).atStartOfDay(), getViewEnd(selectedDate).atStartOfDay());
         }
-        // TH2: Lọc theo ngày cụ thể - Dùng getSchedulesByDate() từ database
-        else if (selectedDate != null) {
-            filteredSchedules = scheduleService.getSchedulesByDate(currentUserId, selectedDate);
-            
-            // Filter thêm theo category
-            if (category != null && !category.equals("Tất cả")) {
-                filteredSchedules = filteredSchedules.stream()
-                    .filter(s -> s.getCategory().equals(category))
-                    .toList();
-            }
+        if (category != null && !category.equals("Tất cả")) {
+            query.category(category);
+        }
+
+        loadingIndicator.setVisible(true);
+        if (debounce) {
+            searchPipeline.submit(query.build());
+        } else {
+            searchPipeline.submitNow(query.build());
         }
-        // TH3: Chỉ filter theo category hoặc load tất cả
-        else {
-            filteredSchedules = scheduleService.getAllSchedulesByUser(currentUserId);
-            
-            if (category != null && !category.equals("Tất cả")) {
-                filteredSchedules = filteredSchedules.stream()
-                    .filter(s -> s.getCategory().equals(category))
-                    .toList();
+    }
+
+    /**
+     * Thực hiện truy vấn lọc; chạy trên thread nền nên không được chạm vào control nào.
+     * - có khoảng thời gian, không từ khóa: lọc trên ScheduleStore trong bộ nhớ
+     * - không khoảng thời gian, không từ khóa: chỉ đọc trang đầu, các trang sau được đọc
+     *   khi cuộn (SchedulePager)
+     * - có từ khóa: mọi tổ hợp điều kiện được lọc trong một câu SQL, lấy tối đa
+     *   SEARCH_MAX_RESULTS kết quả liên quan nhất
+     */
+    private QueryResult queryFilteredSchedules(ScheduleQuery query) {
+        if (!query.hasKeyword() && query.hasRange()) {
+            return new QueryResult(ScheduleStore.forUser(query.getUserId()).find(query), Map.of(), null, false);
+        }
+        if (!query.hasKeyword()) {
+            SchedulePager pager = new SchedulePager(scheduleService, query);
+            List<ScheduleSummary> page = pager.firstPage();
+            return new QueryResult(page, Map.of(), pager, pager.isFullPage(page));
+        }
+        if (query.getLimit() < 0) {
+            query = query.toBuilder().limit(SEARCH_MAX_RESULTS).build();
+        }
+        List<ScheduleSearchResult> results = scheduleService.findSchedules(query);
+
+        List<ScheduleSummary> filteredSchedules = new ArrayList<>(results.size());
+        Map<Integer, String> snippets = new HashMap<>();
+        for (ScheduleSearchResult result : results) {
+            // Đoạn trích đã được tạo, bảng chỉ cần giữ phần tóm tắt
+            filteredSchedules.add(new ScheduleSummary(result.getSchedule()));
+            if (result.getSnippet() != null) {
+                snippets.put(result.getSchedule().getId(), result.getSnippet());
             }
         }
 
-        scheduleList.setAll(filteredSchedules);
+        return new QueryResult(filteredSchedules, snippets, null, false);
     }
 
-    private void showScheduleDetails(Schedule schedule) {
+    /**
+     * Đọc thêm trang khi dòng hiển thị đầu/cuối đến gần mép cửa sổ đang giữ
+     */
+    private void loadPageIfNeeded() {
+        if (activePager == null || pageLoading || tableFlow == null || scheduleList.isEmpty()) {
+            return;
+        }
+        IndexedCell<?> first = tableFlow.getFirstVisibleCell();
+        IndexedCell<?> last = tableFlow.getLastVisibleCell();
+        if (first == null || last == null) {
+            return;
+        }
+
+        int threshold = activePager.getPageSize() / 4;
+        if (moreAfter && last.getIndex() >= scheduleList.size() - threshold) {
+            loadAdjacentPage(true);
+        } else if (moreBefore && first.getIndex() <= threshold) {
+            loadAdjacentPage(false);
+        }
+    }
+
+    /**
+     * Nối trang kế tiếp vào cuối (hoặc trang trước vào đầu) danh sách rồi bỏ bớt đầu kia
+     * để bảng không giữ quá getMaxWindow() lịch; vị trí cuộn được giữ theo dòng đang xem
+     */
+    private void loadAdjacentPage(boolean forward) {
+        SchedulePager pager = activePager;
+        ScheduleSummary anchor = forward ? scheduleList.get(scheduleList.size() - 1) : scheduleList.get(0);
+        pageLoading = true;
+        asyncScheduleService.submit(() -> forward ? pager.pageAfter(anchor) : pager.pageBefore(anchor))
+            .whenComplete((page, error) -> Platform.runLater(() -> {
+                if (pager != activePager) {
+                    return;
+                }
+                pageLoading = false;
+                if (error != null) {
+                    System.err.println("Lỗi khi tải trang lịch: " + error.getMessage());
+                    return;
+                }
+
+                IndexedCell<?> firstCell = tableFlow.getFirstVisibleCell();
+                int firstVisible = firstCell != null ? firstCell.getIndex() : 0;
+                int excess = scheduleList.size() + page.size() - pager.getMaxWindow();
+                if (forward) {
+                    moreAfter = pager.isFullPage(page);
+                    scheduleList.addAll(page);
+                    if (excess > 0) {
+                        scheduleList.remove(0, excess);
+                        moreBefore = true;
+                        tableFlow.scrollToTop(Math.max(0, firstVisible - excess));
+                    }
+                } else {
+                    moreBefore = pager.isFullPage(page);
+                    scheduleList.addAll(0, page);
+                    if (excess > 0) {
+                        scheduleList.remove(scheduleList.size() - excess, scheduleList.size());
+                        moreAfter = true;
+                    }
+                    tableFlow.scrollToTop(firstVisible + page.size());
+                }
+            }));
+    }
+
+    /**
+     * Làm mới danh sách sau khi thêm/sửa/xóa. Với kết quả phân trang, đọc lại đúng cửa sổ
+     * đang hiển thị (từ dòng đầu tiên) thay vì quay về trang đầu
+     */
+    private void refreshSchedules() {
+        if (activePager == null) {
+            filterSchedules(false);
+            return;
+        }
+
+        SchedulePager pager = activePager;
+        ScheduleSummary first = moreBefore && !scheduleList.isEmpty() ? scheduleList.get(0) : null;
+        int limit = pager.windowLimit(scheduleList.size());
+        asyncScheduleService.submit(() -> pager.reloadFrom(first, limit))
+            .whenComplete((window, error) -> Platform.runLater(() -> {
+                if (pager != activePager) {
+                    return;
+                }
+                if (error != null) {
+                    System.err.println("Lỗi khi tải lại danh sách lịch: " + error.getMessage());
+                    return;
+                }
+                moreAfter = window.size() >= limit;
+                showScheduleList(window);
+            }));
+    }
+
+    /**
+     * Ngày đầu tiên của chế độ xem (ngày, tuần bắt đầu từ thứ Hai, hoặc tháng)
+     */
+    private LocalDate getViewStart(LocalDate date) {
+        String mode = viewModeFilter.getValue();
+        if ("Tuần".equals(mode)) {
+            return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        }
+        if ("Tháng".equals(mode)) {
+            return date.withDayOfMonth(1);
+        }
+        return date;
+    }
+
+    /**
+     * Ngày ngay sau ngày cuối cùng của chế độ xem (cận trên không bao gồm)
+     */
+    private LocalDate getViewEnd(LocalDate date) {
+        String mode = viewModeFilter.getValue();
+        if ("Tuần".equals(mode)) {
+            return getViewStart(date).plusWeeks(1);
+        }
+        if ("Tháng".equals(mode)) {
+            return getViewStart(date).plusMonths(1);
+        }
+        return date.plusDays(1);
+    }
+
+    /**
+     * Hiển thị ngay phần tóm tắt, rồi đọc mô tả/ghi chú của dòng được chọn từ database
+     */
+    private void showScheduleDetails(ScheduleSummary summary) {
+        if (summary instanceof Schedule schedule) {
+            renderScheduleDetails(summary, schedule);
+            return;
+        }
+        renderScheduleDetails(summary, null);
+        asyncScheduleService.getScheduleById(summary.getId(), currentUserId)
+            .thenAccept(schedule -> Platform.runLater(() -> {
+                ScheduleSummary selected = scheduleTable.getSelectionModel().getSelectedItem();
+                if (schedule != null && selected != null && selected.getId() == schedule.getId()) {
+                    renderScheduleDetails(selected, schedule);
+                }
+            }));
+    }
+
+    /**
+     * Điền vùng chi tiết; details null nghĩa là mô tả/ghi chú đang được tải
+     */
+    private void renderScheduleDetails(ScheduleSummary schedule, Schedule details) {
         StringBuilder sb = new StringBuilder();
         sb.append("Tiêu đề: ").append(schedule.getTitle()).append("\n\n");
         sb.append("Thời gian bắt đầu: ").append(schedule.getStartTime().format(timeFormatter)).append("\n");
         sb.append("Thời gian kết thúc: ").append(schedule.getEndTime().format(timeFormatter)).append("\n\n");
         sb.append("Danh mục: ").append(schedule.getCategory()).append("\n");
+        if (schedule.getRecurrence() != null) {
+            sb.append("Lặp lại: ").append(schedule.getRecurrence().describe()).append("\n");
+        } else if (schedule.getSeriesId() > 0 && schedule.getOccurrenceStart() != null) {
+            sb.append("Lặp lại: lần lặp lúc ").append(schedule.getOccurrenceStart().format(timeFormatter))
+              .append(" đã được sửa riêng\n");
+        }
         sb.append("Nhắc nhở: ").append(schedule.isReminder() ? "Có (" + schedule.getReminderMinutes() + " phút trước)" : "Không").append("\n\n");
 
-        if (schedule.getDescription() != null && !schedule.getDescription().isEmpty()) {
-            sb.append("Mô tả: ").append(schedule.getDescription()).append("\n\n");
+        if (details == null) {
+            sb.append("Đang tải mô tả và ghi chú...\n");
+        } else {
+            if (details.getDescription() != null && !details.getDescription().isEmpty()) {
+                sb.append("Mô tả: ").append(details.getDescription()).append("\n\n");
+            }
+
+            if (details.getNote() != null && !details.getNote().isEmpty()) {
+                sb.append("Ghi chú: ").append(details.getNote()).append("\n");
+            }
         }
 
-        if (schedule.getNote() != null && !schedule.getNote().isEmpty()) {
-            sb.append("Ghi chú: ").append(schedule.getNote()).append("\n");
+        String snippet = searchSnippets.get(schedule.getId());
+        if (snippet != null && !snippet.isEmpty()) {
+            sb.append("\nKhớp tìm kiếm: ").append(snippet).append("\n");
         }
 
         detailsArea.setText(sb.toString());
@@ -236,36 +510,105 @@ private void handleResetFilter() {
 
     @FXML
     private void handleEditSchedule() {
-        Schedule selected = scheduleTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            showScheduleDialog(selected);
+        ScheduleSummary selected = scheduleTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        boolean occurrenceOnly = false;
+        if (selected.isOccurrence()) {
+            Boolean answer = askOccurrenceOnly("Sửa lần lặp này hay cả chuỗi?", selected);
+            if (answer == null) {
+                return;
+            }
+            occurrenceOnly = answer;
         }
+        boolean editOccurrence = occurrenceOnly;
+
+        // Bảng chỉ có phần tóm tắt, hộp thoại sửa cần đủ mô tả/ghi chú
+        editButton.setDisable(true);
+        asyncScheduleService.getScheduleById(selected.getId(), currentUserId)
+            .thenAccept(schedule -> Platform.runLater(() -> {
+                editButton.setDisable(false);
+                if (schedule != null) {
+                    // Lần lặp không có dòng riêng: dựng lại từ chuỗi (có mô tả/ghi chú của chuỗi)
+                    showScheduleDialog(editOccurrence ? schedule.occurrenceAt(selected.getOccurrenceStart()) : schedule);
+                } else {
+                    showAlert("Lỗi", "Không tìm thấy lịch", Alert.AlertType.ERROR);
+                }
+            }));
     }
 
     @FXML
     private void handleDeleteSchedule() {
-        Schedule selected = scheduleTable.getSelectionModel().getSelectedItem();
+        ScheduleSummary selected = scheduleTable.getSelectionModel().getSelectedItem();
         if (selected == null) return;
 
-        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-        alert.setTitle("Xác nhận xóa");
-        alert.setHeaderText("Bạn có chắc muốn xóa lịch này?");
-        alert.setContentText(selected.getTitle());
+        boolean occurrenceOnly = false;
+        if (selected.isOccurrence()) {
+            Boolean answer = askOccurrenceOnly("Xóa lần lặp này hay cả chuỗi?", selected);
+            if (answer == null) {
+                return;
+            }
+            occurrenceOnly = answer;
+        } else {
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+            alert.setTitle("Xác nhận xóa");
+            alert.setHeaderText("Bạn có chắc muốn xóa lịch này?");
+            alert.setContentText(selected.getTitle());
+
+            Optional<ButtonType> result = alert.showAndWait();
+            if (result.isEmpty() || result.get() != ButtonType.OK) {
+                return;
+            }
+        }
 
-        Optional<ButtonType> result = alert.showAndWait();
-        if (result.isPresent() && result.get() == ButtonType.OK) {
-            if (scheduleService.deleteSchedule(selected.getId(), currentUserId)) {
-                loadSchedules();
+        deleteButton.setDisable(true);
+        CompletableFuture<Boolean> delete = occurrenceOnly
+                ? asyncScheduleService.cancelOccurrence(selected.getId(), currentUserId, selected.getOccurrenceStart())
+                : asyncScheduleService.deleteSchedule(selected.getId(), currentUserId);
+        delete.thenAccept(success -> Platform.runLater(() -> {
+            if (success) {
+                refreshSchedules();
                 showAlert("Thành công", "Đã xóa lịch", Alert.AlertType.INFORMATION);
             } else {
+                deleteButton.setDisable(false);
                 showAlert("Lỗi", "Không thể xóa lịch", Alert.AlertType.ERROR);
             }
+        }));
+    }
+
+    /**
+     * Hỏi thao tác áp dụng cho riêng lần lặp được chọn hay cả chuỗi; null nếu người dùng hủy
+     */
+    private Boolean askOccurrenceOnly(String header, ScheduleSummary occurrence) {
+        ButtonType onlyThis = new ButtonType("Chỉ lần này");
+        ButtonType wholeSeries = new ButtonType("Cả chuỗi");
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                occurrence.getTitle() + " (" + occurrence.getStartTime().format(timeFormatter) + ")",
+                onlyThis, wholeSeries, ButtonType.CANCEL);
+        alert.setTitle("Lịch lặp");
+        alert.setHeaderText(header);
+
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isEmpty() || result.get() == ButtonType.CANCEL) {
+            return null;
         }
+        return result.get() == onlyThis;
     }
 
     @FXML
     private void handleLogout() {
+        searchPipeline.cancel();
+        System.out.println("Pipeline tìm kiếm (debounce " + searchPipeline.getDebounceMillis() + "ms): "
+            + searchPipeline.getMetrics());
         notificationService.stopNotificationService();
+        ScheduleStore.release(currentUserId);
+        activePager = null;
+        // Đăng xuất chủ động: lần mở sau phải đăng nhập lại
+        asyncScheduleService.submit(() -> {
+            new SessionService().revokeCurrentSession();
+            return null;
+        });
         CalendarApp.showLoginScreen();
     }
 
@@ -328,8 +671,12 @@ private void handleResetFilter() {
     }
 
     private void showScheduleDialog(Schedule existingSchedule) {
+        // Sửa riêng một lần lặp: lưu thành lịch thay thế, không đổi quy tắc lặp của chuỗi
+        boolean editingOccurrence = existingSchedule != null && existingSchedule.isOccurrence();
+
         Dialog<Schedule> dialog = new Dialog<>();
-        dialog.setTitle(existingSchedule == null ? "Thêm lịch mới" : "Sửa lịch");
+        dialog.setTitle(existingSchedule == null ? "Thêm lịch mới"
+                : editingOccurrence ? "Sửa một lần lặp" : "Sửa lịch");
         dialog.setHeaderText(null);
 
         ButtonType saveButtonType = new ButtonType("Lưu", ButtonBar.ButtonData.OK_DONE);
@@ -405,6 +752,28 @@ private void handleResetFilter() {
             reminderSpinner.setDisable(!newVal);
         });
 
+        ComboBox<String> repeatBox = new ComboBox<>(FXCollections.observableArrayList("Không lặp"));
+        for (Recurrence.Frequency frequency : Recurrence.Frequency.values()) {
+            repeatBox.getItems().add(frequency.getLabel());
+        }
+        repeatBox.getSelectionModel().select(0);
+        repeatBox.setPrefWidth(130);
+        Spinner<Integer> intervalSpinner = new Spinner<>(1, 99, 1);
+        intervalSpinner.setPrefWidth(60);
+        Label intervalUnitLabel = new Label();
+        DatePicker untilPicker = new DatePicker();
+        untilPicker.setPromptText("Không kết thúc");
+        untilPicker.setPrefWidth(130);
+
+        repeatBox.getSelectionModel().selectedIndexProperty().addListener((obs, oldVal, newVal) -> {
+            int index = newVal.intValue();
+            intervalSpinner.setDisable(index <= 0);
+            untilPicker.setDisable(index <= 0);
+            intervalUnitLabel.setText(index > 0 ? Recurrence.Frequency.values()[index - 1].getUnit() : "");
+        });
+        intervalSpinner.setDisable(true);
+        untilPicker.setDisable(true);
+
         if (existingSchedule != null) {
             titleField.setText(existingSchedule.getTitle());
             descField.setText(existingSchedule.getDescription());
@@ -418,6 +787,13 @@ private void handleResetFilter() {
             categoryBox.setValue(existingSchedule.getCategory());
             reminderCheck.setSelected(existingSchedule.isReminder());
             reminderSpinner.getValueFactory().setValue(existingSchedule.getReminderMinutes());
+
+            Recurrence recurrence = existingSchedule.getRecurrence();
+            if (recurrence != null) {
+                repeatBox.getSelectionModel().select(recurrence.getFrequency().ordinal() + 1);
+                intervalSpinner.getValueFactory().setValue(recurrence.getInterval());
+                untilPicker.setValue(recurrence.getUntil());
+            }
         } else {
             startDatePicker.setValue(LocalDate.now());
             endDatePicker.setValue(LocalDate.now());
@@ -450,12 +826,65 @@ private void handleResetFilter() {
         grid.add(new Label("Danh mục:"), 0, row);
         grid.add(categoryBox, 1, row);
 
+        if (!editingOccurrence) {
+            row++;
+            javafx.scene.layout.HBox repeatRuleBox = new javafx.scene.layout.HBox(5);
+            repeatRuleBox.getChildren().addAll(new Label("mỗi"), intervalSpinner, intervalUnitLabel,
+                                               new Label("đến"), untilPicker);
+            repeatRuleBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+            grid.add(new Label("Lặp lại:"), 0, row);
+            grid.add(repeatBox, 1, row);
+            grid.add(repeatRuleBox, 2, row);
+        }
+
         row++;
         javafx.scene.layout.HBox reminderBox = new javafx.scene.layout.HBox(5);
         reminderBox.getChildren().addAll(reminderCheck, reminderSpinner, new Label("phút trước"));
         reminderBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
         grid.add(reminderBox, 0, row, 3, 1);
 
+        // Cảnh báo trùng lịch, cập nhật ngay khi đổi ngày/giờ (tra trong ScheduleStore ở thread nền)
+        row++;
+        Label conflictLabel = new Label();
+        conflictLabel.setTextFill(Color.DARKORANGE);
+        conflictLabel.setWrapText(true);
+        conflictLabel.setMaxWidth(430);
+        grid.add(conflictLabel, 0, row, 3, 1);
+
+        int excludeId = existingSchedule != null ? existingSchedule.getId() : 0;
+        // Sửa một lần lặp: chỉ bỏ qua chính lần đó, vẫn báo trùng với các lần lặp khác của chuỗi
+        LocalDateTime excludeOccurrence = editingOccurrence ? existingSchedule.getOccurrenceStart() : null;
+        int[] conflictCheck = {0}; // chỉ hiển thị kết quả của lần kiểm tra mới nhất
+        Runnable checkConflicts = () -> {
+            int check = ++conflictCheck[0];
+            if (startDatePicker.getValue() == null || endDatePicker.getValue() == null) {
+                conflictLabel.setText("");
+                return;
+            }
+            LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(),
+                    LocalTime.of(startHourSpinner.getValue(), startMinuteSpinner.getValue()));
+            LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(),
+                    LocalTime.of(endHourSpinner.getValue(), endMinuteSpinner.getValue()));
+            if (end.isBefore(start)) {
+                conflictLabel.setText("");
+                return;
+            }
+            int userId = currentUserId;
+            asyncScheduleService.submit(() -> ScheduleStore.forUser(userId).findConflicts(start, end, excludeId, excludeOccurrence))
+                .thenAccept(conflicts -> Platform.runLater(() -> {
+                    if (check == conflictCheck[0]) {
+                        conflictLabel.setText(formatConflicts(conflicts));
+                    }
+                }));
+        };
+        startDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> checkConflicts.run());
+        endDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> checkConflicts.run());
+        startHourSpinner.valueProperty().addListener((obs, oldVal, newVal) -> checkConflicts.run());
+        startMinuteSpinner.valueProperty().addListener((obs, oldVal, newVal) -> checkConflicts.run());
+        endHourSpinner.valueProperty().addListener((obs, oldVal, newVal) -> checkConflicts.run());
+        endMinuteSpinner.valueProperty().addListener((obs, oldVal, newVal) -> checkConflicts.run());
+        checkConflicts.run();
+
         dialog.getDialogPane().setContent(grid);
 
         dialog.setResultConverter(dialogButton -> {
@@ -481,9 +910,27 @@ private void handleResetFilter() {
                     return null;
                 }
 
+                Recurrence recurrence = null;
+                int repeatIndex = repeatBox.getSelectionModel().getSelectedIndex();
+                if (!editingOccurrence && repeatIndex > 0) {
+                    LocalDate until = untilPicker.getValue();
+                    if (until != null && until.isBefore(startDatePicker.getValue())) {
+                        showAlert("Lỗi", "Ngày kết thúc lặp phải từ ngày bắt đầu trở đi", Alert.AlertType.ERROR);
+                        return null;
+                    }
+                    Recurrence.Frequency frequency = Recurrence.Frequency.values()[repeatIndex - 1];
+                    Recurrence previous = existingSchedule != null ? existingSchedule.getRecurrence() : null;
+                    // Giữ các lần lặp đã hủy/sửa riêng khi chỉ đổi quy tắc; nếu giờ bắt đầu bị dời,
+                    // ScheduleService.updateSchedule dời chúng theo trong cùng transaction
+                    recurrence = previous != null
+                            ? previous.withRule(frequency, intervalSpinner.getValue(), until)
+                            : new Recurrence(frequency, intervalSpinner.getValue(), until);
+                }
+
                 Schedule schedule;
                 if (existingSchedule != null) {
-                    schedule = existingSchedule;
+                    // Sửa trên bản sao để bảng vẫn giữ giá trị cũ nếu lưu thất bại
+                    schedule = new Schedule(existingSchedule);
                 } else {
                     schedule = new Schedule();
                     schedule.setUserId(currentUserId);
@@ -497,6 +944,7 @@ private void handleResetFilter() {
                 schedule.setCategory(categoryBox.getValue());
                 schedule.setReminder(reminderCheck.isSelected());
                 schedule.setReminderMinutes(reminderSpinner.getValue());
+                schedule.setRecurrence(recurrence);
 
                 return schedule;
             }
@@ -505,21 +953,54 @@ private void handleResetFilter() {
 
         Optional<Schedule> result = dialog.showAndWait();
         result.ifPresent(schedule -> {
-            boolean success;
-            if (existingSchedule != null) {
-                success = scheduleService.updateSchedule(schedule);
-            } else {
-                success = scheduleService.addSchedule(schedule);
-            }
+            CompletableFuture<Boolean> save = editingOccurrence
+                    ? asyncScheduleService.overrideOccurrence(schedule)
+                    : existingSchedule != null
+                    ? asyncScheduleService.updateSchedule(schedule)
+                    : asyncScheduleService.addSchedule(schedule);
+
+            loadingIndicator.setVisible(true);
+            save.thenAccept(success -> Platform.runLater(() -> {
+                if (success) {
+                    refreshSchedules();
+                    showAlert("Thành công",
+                            existingSchedule != null ? "Đã cập nhật lịch" : "Đã thêm lịch mới",
+                            Alert.AlertType.INFORMATION);
+                } else {
+                    loadingIndicator.setVisible(false);
+                    showAlert("Lỗi", "Không thể lưu lịch", Alert.AlertType.ERROR);
+                }
+            }));
+        });
+    }
 
-            if (success) {
-                loadSchedules();
-                showAlert("Thành công",
-                        existingSchedule != null ? "Đã cập nhật lịch" : "Đã thêm lịch mới",
-                        Alert.AlertType.INFORMATION);
-            } else {
-                showAlert("Lỗi", "Không thể lưu lịch", Alert.AlertType.ERROR);
+    /**
+     * Nội dung cảnh báo trùng lịch: tối đa 3 lịch, còn lại chỉ ghi số lượng
+     */
+    private String formatConflicts(List<ScheduleSummary> conflicts) {
+        if (conflicts.isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("⚠ Trùng với: ");
+        int shown = Math.min(conflicts.size(), 3);
+        for (int i = 0; i < shown; i++) {
+            ScheduleSummary conflict = conflicts.get(i);
+            if (i > 0) {
+                text.append("; ");
             }
-        });
+            text.append(conflict.getTitle()).append(" (").append(conflict.getStartTime().format(timeFormatter)).append(")");
+        }
+        if (conflicts.size() > shown) {
+            text.append(" và ").append(conflicts.size() - shown).append(" lịch khác");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Kết quả một truy vấn danh sách: các lịch, đoạn trích khớp từ khóa (nếu có) và bộ
+     * phân trang khi kết quả chỉ là trang đầu của truy vấn không giới hạn thời gian
+     */
+    private record QueryResult(List<ScheduleSummary> schedules, Map<Integer, String> snippets,
+                               SchedulePager pager, boolean moreAfter) {
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,9 @@
 package com.calendar.controller;
 
 import com.calendar.CalendarApp;
+import com.calendar.service.AsyncUserService;
 import com.calendar.service.UserService;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 @SuppressWarnings("unused")
@@ -15,15 +17,14 @@ public class RegisterController {
     @FXML private Button registerButton;
     @FXML private Hyperlink loginLink;
 
-    private UserService userService;
+    private AsyncUserService asyncUserService;
 
     @FXML
     public void initialize() {
-        userService = new UserService();
+        asyncUserService = new AsyncUserService(new UserService());
     }
 
     @FXML
-    @SuppressWarnings("CallToPrintStackTrace")
     private void handleRegister() {
         String username = usernameField.getText().trim();
         String email = emailField.getText().trim();
@@ -60,9 +61,13 @@ public class RegisterController {
         registerButton.setDisable(true);
         messageLabel.setText("Đang đăng ký...");
 
-        // Thực hiện đăng ký
-        boolean success = userService.register(username, password, email);
+        // Thực hiện đăng ký trên thread nền (BCrypt), cửa sổ vẫn phản hồi
+        asyncUserService.register(username, password, email).whenComplete((success, error) ->
+            Platform.runLater(() -> onRegisterCompleted(Boolean.TRUE.equals(success))));
+    }
 
+    @SuppressWarnings("CallToPrintStackTrace")
+    private void onRegisterCompleted(boolean success) {
         if (success) {
             showMessage("Đăng ký thành công! Đang chuyển về trang đăng nhập...", "success");
             
@@ -70,7 +75,7 @@ public class RegisterController {
             new Thread(() -> {
                 try {
                     Thread.sleep(1500);
-                    javafx.application.Platform.runLater(() -> {
+                    Platform.runLater(() -> {
                         CalendarApp.showLoginScreen();
                     });
                 } catch (InterruptedException e) {
@@ -1,86 +1,346 @@
 package com.calendar.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Lớp truy cập dữ liệu dùng chung cho toàn ứng dụng.
+ *
+ * SQLite được mở ở chế độ WAL: một connection ghi duy nhất (được bảo vệ bởi lock)
+ * và một pool nhỏ các connection chỉ đọc, nên truy vấn đọc không phải xếp hàng sau
+ * thao tác ghi. Mọi phương thức đều an toàn khi gọi từ bất kỳ thread nào.
+ *
+ * Các tham số có thể cấu hình qua system property:
+ * calendar.db.url, calendar.db.readPoolSize, calendar.db.busyTimeoutMs,
+ * calendar.db.cacheSizeKb, calendar.db.mmapSizeBytes, calendar.db.maxRetries,
+ * calendar.db.statementCacheSize.
+ */
 @SuppressWarnings("unused")
 public class DatabaseManager {
-    private static final String DATABASE_URL = "jdbc:sqlite:schedule_manager.db";
-    private static DatabaseManager instance;
-    private Connection connection;
+    private static final String DATABASE_URL = System.getProperty("calendar.db.url", "jdbc:sqlite:schedule_manager.db");
+    private static final int READ_POOL_SIZE = Math.max(1, Integer.getInteger("calendar.db.readPoolSize", 4));
+    private static final int BUSY_TIMEOUT_MS = Integer.getInteger("calendar.db.busyTimeoutMs", 5000);
+    private static final int CACHE_SIZE_KB = Integer.getInteger("calendar.db.cacheSizeKb", 8192);
+    private static final long MMAP_SIZE_BYTES = Long.getLong("calendar.db.mmapSizeBytes", 64L * 1024 * 1024);
+    private static final int MAX_RETRIES = Integer.getInteger("calendar.db.maxRetries", 5);
+    private static final long RETRY_BACKOFF_MS = 50;
+    // Chu kỳ kiểm tra cờ closed khi đang chờ connection đọc
+    private static final long POOL_WAIT_MS = 100;
+    private static final int STATEMENT_CACHE_SIZE = Math.max(1, Integer.getInteger("calendar.db.statementCacheSize", 32));
+
+    // Mã lỗi gốc của SQLite khi database đang bị khóa bởi connection/tiến trình khác
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private static volatile DatabaseManager instance;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private final Connection writeConnection;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<Connection> readPool = new ArrayBlockingQueue<>(READ_POOL_SIZE);
+    // Cache PreparedStatement theo từng connection; mỗi connection chỉ được một thread dùng tại một thời điểm
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+    // Sau closeConnection mọi lời gọi mới đều lỗi ngay thay vì chờ connection đã đóng
+    private volatile boolean closed;
+
+    /**
+     * Công việc thực hiện trên một connection được cấp phát bởi DatabaseManager.
+     * Connection chỉ hợp lệ trong phạm vi lời gọi, không được giữ lại bên ngoài.
+     */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
     @SuppressWarnings("CallToPrintStackTrace")
     private DatabaseManager() {
         try {
-            connection = DriverManager.getConnection(DATABASE_URL);
-            createTables();
+            writeConnection = openConnection(false);
+            new SchemaMigrator(SchemaMigrations.all()).migrate(writeConnection);
+
+            for (int i = 0; i < READ_POOL_SIZE; i++) {
+                Connection readConnection = openConnection(true);
+                readPool.add(readConnection);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
+            closeConnection();
             throw new RuntimeException("Không thể kết nối đến database: " + e.getMessage());
         }
     }
 
     public static DatabaseManager getInstance() {
-        if (instance == null) {
-            instance = new DatabaseManager();
+        DatabaseManager result = instance;
+        if (result == null) {
+            synchronized (DatabaseManager.class) {
+                result = instance;
+                if (result == null) {
+                    result = new DatabaseManager();
+                    instance = result;
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
-    public Connection getConnection() {
+    /**
+     * Mở connection với cấu hình WAL, busy timeout, page cache và mmap
+     */
+    private Connection openConnection(boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(BUSY_TIMEOUT_MS);
+        config.setReadOnly(readOnly);
+        if (!readOnly) {
+            // journal_mode được lưu trong file database nên chỉ cần đặt từ connection ghi
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            // Giữ write lock ngay từ đầu transaction để tránh lỗi nâng cấp lock giữa chừng
+            config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        }
+
+        Connection connection = config.createConnection(DATABASE_URL);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA cache_size = -" + CACHE_SIZE_KB);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+        }
         return connection;
     }
 
-    @SuppressWarnings("CallToPrintStackTrace")
-    private void createTables() {
+    /**
+     * Thực hiện truy vấn đọc trên một connection lấy từ pool đọc
+     */
+    public <T> T executeRead(SqlWork<T> work) throws SQLException {
+        Connection connection = null;
         try {
-            Statement stmt = connection.createStatement();
-
-            // Bảng Users
-            String createUsersTable = """
-                CREATE TABLE IF NOT EXISTS users (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    username TEXT NOT NULL UNIQUE,
-                    password TEXT NOT NULL,
-                    email TEXT NOT NULL UNIQUE,
-                    created_at TEXT NOT NULL
-                )
-            """;
-
-            // Bảng Schedules
-            String createSchedulesTable = """
-                CREATE TABLE IF NOT EXISTS schedules (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    user_id INTEGER NOT NULL,
-                    title TEXT NOT NULL,
-                    description TEXT,
-                    note TEXT,
-                    start_time TEXT NOT NULL,
-                    end_time TEXT NOT NULL,
-                    is_reminder INTEGER DEFAULT 0,
-                    reminder_minutes INTEGER DEFAULT 15,
-                    category TEXT DEFAULT 'Khác',
-                    created_at TEXT NOT NULL,
-                    updated_at TEXT NOT NULL,
-                    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-                )
-            """;
-
-            stmt.execute(createUsersTable);
-            stmt.execute(createSchedulesTable);
-
-            System.out.println("Đã tạo các bảng trong database thành công!");
+            while (connection == null) {
+                checkOpen();
+                connection = readPool.poll(POOL_WAIT_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Bị ngắt khi chờ connection đọc", e);
+        }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Lỗi khi tạo bảng: " + e.getMessage());
+        try {
+            checkOpen();
+            return withRetry(work, connection);
+        } finally {
+            closeEvictedStatements(connection);
+            returnReadConnection(connection);
+        }
+    }
+
+    /**
+     * Trả connection đọc về pool; nếu database đã đóng thì đóng luôn connection
+     * (connection đang được mượn khi closeConnection chạy được đóng tại đây)
+     */
+    private void returnReadConnection(Connection connection) {
+        if (!closed) {
+            readPool.offer(connection);
+            if (!closed || !readPool.remove(connection)) {
+                // closeConnection chưa chạy, hoặc đã lấy connection này ra để đóng
+                return;
+            }
+        }
+        closeReadConnection(connection);
+    }
+
+    private void closeReadConnection(Connection connection) {
+        StatementCache cache;
+        synchronized (statementCaches) {
+            cache = statementCaches.remove(connection);
+        }
+        if (cache != null) {
+            cache.closeAll();
+        }
+        closeQuietly(connection);
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Kết nối database đã đóng");
+        }
+    }
+
+    /**
+     * Thực hiện một câu lệnh ghi (autocommit) trên connection ghi duy nhất
+     */
+    public <T> T executeWrite(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            checkOpen();
+            return withRetry(work, writeConnection);
+        } finally {
+            releaseWriteLock();
+        }
+    }
+
+    /**
+     * Thực hiện nhiều câu lệnh ghi trong một transaction (BEGIN IMMEDIATE).
+     * Transaction được rollback nếu có lỗi và chạy lại nếu database đang bận.
+     */
+    public <T> T executeInTransaction(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            checkOpen();
+            if (!writeConnection.getAutoCommit()) {
+                // Đã nằm trong transaction của cùng thread, dùng lại transaction hiện tại
+                return work.execute(writeConnection);
+            }
+
+            return withRetry(connection -> {
+                connection.setAutoCommit(false);
+                try {
+                    T result = work.execute(connection);
+                    connection.commit();
+                    return result;
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }, writeConnection);
+        } finally {
+            releaseWriteLock();
+        }
+    }
+
+    /**
+     * Nhả write lock; lời gọi ngoài cùng (không lồng trong executeInTransaction/executeWrite
+     * khác) đóng luôn các statement đã bị loại khỏi cache trong lúc nó chạy
+     */
+    private void releaseWriteLock() {
+        try {
+            if (writeLock.getHoldCount() == 1) {
+                closeEvictedStatements(writeConnection);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void closeEvictedStatements(Connection connection) {
+        StatementCache cache;
+        synchronized (statementCaches) {
+            cache = statementCaches.get(connection);
+        }
+        if (cache != null) {
+            cache.closeEvicted();
+        }
+    }
+
+    /**
+     * Chạy lại công việc khi gặp SQLITE_BUSY/SQLITE_LOCKED (ví dụ khi hai instance
+     * của ứng dụng cùng mở schedule_manager.db), với thời gian chờ tăng dần
+     */
+    private <T> T withRetry(SqlWork<T> work, Connection connection) throws SQLException {
+        int attempt = 0;
+        while (true) {
+            try {
+                return work.execute(connection);
+            } catch (SQLException e) {
+                if (!isBusy(e) || attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+                attempt++;
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lấy PreparedStatement đã biên dịch sẵn cho câu SQL trên connection hiện tại
+     * (chỉ dùng bên trong SqlWork). Statement được cache theo nội dung SQL nên mỗi
+     * dạng truy vấn chỉ phải prepare một lần.
+     *
+     * Người gọi KHÔNG được đóng statement, nhưng phải đóng ResultSet sau khi đọc xong.
+     * Tham số cũ được xóa trước khi trả về. Statement dùng được đến hết SqlWork hiện tại:
+     * statement bị loại khỏi cache chỉ được đóng khi connection được trả lại.
+     */
+    public PreparedStatement prepareCached(Connection connection, String sql) throws SQLException {
+        StatementCache cache;
+        synchronized (statementCaches) {
+            cache = statementCaches.computeIfAbsent(connection, c -> new StatementCache());
+        }
+
+        PreparedStatement pstmt = cache.get(sql);
+        if (pstmt == null || pstmt.isClosed()) {
+            pstmt = connection.prepareStatement(sql);
+            cache.put(sql, pstmt);
+        } else {
+            pstmt.clearParameters();
+        }
+        return pstmt;
+    }
+
+    /**
+     * LRU cache statement của một connection. Statement bị loại ra có thể vẫn đang được
+     * SqlWork hiện tại dùng, nên chỉ được đóng ở closeEvicted khi connection được trả lại.
+     */
+    private static class StatementCache extends LinkedHashMap<String, PreparedStatement> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<PreparedStatement> evicted = new ArrayList<>();
+
+        StatementCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > STATEMENT_CACHE_SIZE) {
+                evicted.add(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+
+        void closeEvicted() {
+            for (PreparedStatement pstmt : evicted) {
+                closeQuietly(pstmt);
+            }
+            evicted.clear();
+        }
+
+        void closeAll() {
+            closeEvicted();
+            for (PreparedStatement pstmt : values()) {
+                closeQuietly(pstmt);
+            }
+            clear();
         }
     }
 
+    /**
+     * True nếu lỗi là do database đang bị khóa (có thể thử lại)
+     */
+    public static boolean isBusy(SQLException e) {
+        int primaryCode = e.getErrorCode() & 0xFF;
+        return primaryCode == SQLITE_BUSY || primaryCode == SQLITE_LOCKED;
+    }
+
     // Helper methods để chuyển đổi LocalDateTime
     public static String formatDateTime(LocalDateTime dateTime) {
         return dateTime.format(FORMATTER);
@@ -90,15 +350,73 @@ public class DatabaseManager {
         return LocalDateTime.parse(dateTimeString, FORMATTER);
     }
 
+    /**
+     * Chuyển giờ địa phương sang số giây epoch để lưu vào cột INTEGER.
+     * Giá trị được tính như thể giờ địa phương là UTC (không phụ thuộc múi giờ/DST),
+     * trùng với strftime('%s', ...) của SQLite trên chuỗi "yyyy-MM-dd HH:mm:ss".
+     */
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Giải mã cột INTEGER epoch sang LocalDateTime, không qua DateTimeFormatter
+     */
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Đóng database. Lời gọi executeRead/executeWrite sau đó lỗi ngay bằng SQLException;
+     * connection đọc đang được dùng chỉ bị đóng khi được trả về pool, connection ghi
+     * được đóng sau khi thao tác ghi đang chạy kết thúc.
+     */
     @SuppressWarnings("CallToPrintStackTrace")
     public void closeConnection() {
+        closed = true;
+        synchronized (DatabaseManager.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+
+        Connection readConnection;
+        while ((readConnection = readPool.poll()) != null) {
+            closeReadConnection(readConnection);
+        }
+
+        writeLock.lock();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            StatementCache writeCache;
+            synchronized (statementCaches) {
+                writeCache = statementCaches.remove(writeConnection);
+            }
+            if (writeCache != null) {
+                writeCache.closeAll();
+            }
+            if (writeConnection != null && !writeConnection.isClosed()) {
+                // Cập nhật thống kê cho query planner khi cần (khuyến nghị của SQLite trước khi đóng)
+                try (Statement stmt = writeConnection.createStatement()) {
+                    stmt.execute("PRAGMA optimize");
+                }
+                writeConnection.close();
                 System.out.println("Đã đóng kết nối database");
             }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @SuppressWarnings("CallToPrintStackTrace")
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            if (resource != null) {
+                resource.close();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
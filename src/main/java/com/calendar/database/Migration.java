@@ -0,0 +1,28 @@
+package com.calendar.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Một bước thay đổi schema có đánh số phiên bản.
+ * Các migration được áp dụng tăng dần theo version và ghi lại bằng PRAGMA user_version.
+ */
+public interface Migration {
+
+    int getVersion();
+
+    String getDescription();
+
+    /**
+     * Áp dụng migration. Được gọi bên trong transaction do SchemaMigrator mở sẵn.
+     */
+    void apply(Connection connection) throws SQLException;
+
+    /**
+     * Các truy vấn cần kiểm tra bằng EXPLAIN QUERY PLAN sau khi áp dụng migration
+     */
+    default List<QueryPlanCheck> getQueryPlanChecks() {
+        return List.of();
+    }
+}
@@ -0,0 +1,77 @@
+package com.calendar.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+
+import com.calendar.util.TextNormalizer;
+
+/**
+ * Version 15: đưa văn bản đã lưu ở dạng tổ hợp (NFD, ví dụ gõ bằng Unikey "Unicode tổ hợp"
+ * hoặc dán từ macOS) về NFC và tính lại các cột *_norm. Trước đây các dòng này giữ nguyên
+ * dấu tổ hợp trong *_norm nên tìm kiếm không dấu bỏ sót chúng. Chỉ các dòng có trường chưa
+ * ở dạng NFC được ghi lại; trigger schedules_fts_au cập nhật chỉ mục FTS.
+ */
+public class NfcTextMigration implements Migration {
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public int getVersion() {
+        return 15;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Chuyển văn bản dạng tổ hợp sang NFC và chuẩn hóa lại cột tìm kiếm";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        String selectSql = "SELECT id, title, description, note, category FROM schedules";
+        String updateSql = """
+            UPDATE schedules
+            SET title = ?, description = ?, note = ?, category = ?,
+                title_norm = ?, description_norm = ?, note_norm = ?, category_norm = ?
+            WHERE id = ?
+        """;
+
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(selectSql);
+             PreparedStatement update = connection.prepareStatement(updateSql)) {
+            int pending = 0;
+            while (rs.next()) {
+                String[] fields = {
+                    rs.getString("title"), rs.getString("description"), rs.getString("note"), rs.getString("category")
+                };
+                if (isNfc(fields)) {
+                    continue;
+                }
+                for (int i = 0; i < fields.length; i++) {
+                    update.setString(i + 1, TextNormalizer.toNfc(fields[i]));
+                    update.setString(i + 5, TextNormalizer.normalize(fields[i]));
+                }
+                update.setInt(9, rs.getInt("id"));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static boolean isNfc(String[] fields) {
+        for (String field : fields) {
+            if (field != null && !Normalizer.isNormalized(field, Normalizer.Form.NFC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
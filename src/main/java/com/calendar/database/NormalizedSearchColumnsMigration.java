@@ -0,0 +1,121 @@
+package com.calendar.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.calendar.util.TextNormalizer;
+
+/**
+ * Version 6: thêm các cột *_norm (bỏ dấu, chữ thường) cho tìm kiếm không phân biệt dấu.
+ *
+ * Các cột được ScheduleService ghi cùng lúc với dữ liệu gốc nên truy vấn không phải
+ * chuẩn hóa gì thêm. Chỉ mục FTS5 được dựng lại trên các cột này, và category_norm
+ * có index riêng cho bộ lọc danh mục. Dữ liệu cũ được chuẩn hóa bằng Java vì SQLite
+ * không có hàm bỏ dấu tiếng Việt.
+ */
+public class NormalizedSearchColumnsMigration implements Migration {
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public int getVersion() {
+        return 6;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cột chuẩn hóa không dấu cho tìm kiếm và lọc danh mục";
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE schedules ADD COLUMN title_norm TEXT");
+            stmt.execute("ALTER TABLE schedules ADD COLUMN description_norm TEXT");
+            stmt.execute("ALTER TABLE schedules ADD COLUMN note_norm TEXT");
+            stmt.execute("ALTER TABLE schedules ADD COLUMN category_norm TEXT");
+        }
+
+        backfill(connection);
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE INDEX idx_schedules_user_category ON schedules(user_id, category_norm, start_time)");
+
+            // Dựng lại FTS trên các cột đã chuẩn hóa
+            stmt.execute("DROP TRIGGER IF EXISTS schedules_fts_ai");
+            stmt.execute("DROP TRIGGER IF EXISTS schedules_fts_ad");
+            stmt.execute("DROP TRIGGER IF EXISTS schedules_fts_au");
+            stmt.execute("DROP TABLE IF EXISTS schedules_fts");
+            stmt.execute("""
+                CREATE VIRTUAL TABLE schedules_fts USING fts5(
+                    title_norm, description_norm, note_norm,
+                    content = 'schedules',
+                    content_rowid = 'id',
+                    tokenize = 'unicode61 remove_diacritics 2',
+                    prefix = '2 3'
+                )
+            """);
+            stmt.execute("""
+                CREATE TRIGGER schedules_fts_ai AFTER INSERT ON schedules BEGIN
+                    INSERT INTO schedules_fts (rowid, title_norm, description_norm, note_norm)
+                    VALUES (new.id, new.title_norm, new.description_norm, new.note_norm);
+                END
+            """);
+            stmt.execute("""
+                CREATE TRIGGER schedules_fts_ad AFTER DELETE ON schedules BEGIN
+                    INSERT INTO schedules_fts (schedules_fts, rowid, title_norm, description_norm, note_norm)
+                    VALUES ('delete', old.id, old.title_norm, old.description_norm, old.note_norm);
+                END
+            """);
+            stmt.execute("""
+                CREATE TRIGGER schedules_fts_au AFTER UPDATE OF title_norm, description_norm, note_norm ON schedules BEGIN
+                    INSERT INTO schedules_fts (schedules_fts, rowid, title_norm, description_norm, note_norm)
+                    VALUES ('delete', old.id, old.title_norm, old.description_norm, old.note_norm);
+                    INSERT INTO schedules_fts (rowid, title_norm, description_norm, note_norm)
+                    VALUES (new.id, new.title_norm, new.description_norm, new.note_norm);
+                END
+            """);
+            stmt.execute("INSERT INTO schedules_fts (schedules_fts) VALUES ('rebuild')");
+        }
+    }
+
+    private void backfill(Connection connection) throws SQLException {
+        String selectSql = "SELECT id, title, description, note, category FROM schedules";
+        String updateSql = """
+            UPDATE schedules
+            SET title_norm = ?, description_norm = ?, note_norm = ?, category_norm = ?
+            WHERE id = ?
+        """;
+
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(selectSql);
+             PreparedStatement update = connection.prepareStatement(updateSql)) {
+            int pending = 0;
+            while (rs.next()) {
+                update.setString(1, TextNormalizer.normalize(rs.getString("title")));
+                update.setString(2, TextNormalizer.normalize(rs.getString("description")));
+                update.setString(3, TextNormalizer.normalize(rs.getString("note")));
+                update.setString(4, TextNormalizer.normalize(rs.getString("category")));
+                update.setInt(5, rs.getInt("id"));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+
+    @Override
+    public List<QueryPlanCheck> getQueryPlanChecks() {
+        return List.of(new QueryPlanCheck(
+            "SELECT * FROM schedules WHERE user_id = ? AND category_norm = ? ORDER BY start_time ASC",
+            "idx_schedules_user_category"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.calendar.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kiểm tra bằng EXPLAIN QUERY PLAN rằng một truy vấn thực sự dùng index mong đợi.
+ * Các tham số "?" trong truy vấn không cần bind, SQLite vẫn lập kế hoạch được.
+ */
+public class QueryPlanCheck {
+    private final String query;
+    private final String expectedIndex;
+
+    public QueryPlanCheck(String query, String expectedIndex) {
+        this.query = query;
+        this.expectedIndex = expectedIndex;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getExpectedIndex() {
+        return expectedIndex;
+    }
+
+    /**
+     * Trả về các dòng "detail" của EXPLAIN QUERY PLAN
+     */
+    public List<String> explain(Connection connection) throws SQLException {
+        List<String> details = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement("EXPLAIN QUERY PLAN " + query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                details.add(rs.getString("detail"));
+            }
+        }
+        return details;
+    }
+
+    /**
+     * True nếu kế hoạch thực thi có dùng index mong đợi
+     */
+    public boolean isSatisfiedBy(List<String> planDetails) {
+        String marker = "INDEX " + expectedIndex;
+        for (String detail : planDetails) {
+            if (detail != null && (detail.contains(marker + " ") || detail.endsWith(marker))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
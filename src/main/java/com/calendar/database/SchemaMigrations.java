@@ -0,0 +1,418 @@
+package com.calendar.database;
+
+import java.util.List;
+
+/**
+ * Danh sách migration của ứng dụng, theo thứ tự version.
+ * Chỉ được thêm migration mới vào cuối, không sửa migration đã phát hành.
+ */
+public final class SchemaMigrations {
+
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+            createBaseTables(),
+            createScheduleIndexes(),
+            convertScheduleTimesToEpoch(),
+            createScheduleEndTimeIndex(),
+            createScheduleFullTextIndex(),
+            new NormalizedSearchColumnsMigration(),
+            addReminderAtColumn(),
+            createReminderDueIndex(),
+            createReminderDeliveryLog(),
+            createAppSettings(),
+            createSessions(),
+            addRecurrenceColumns(),
+            createBusyIndexes(),
+            createLongScheduleIndex(),
+            new NfcTextMigration()
+        );
+    }
+
+    /**
+     * Version 1: bảng users và schedules.
+     * Dùng IF NOT EXISTS để database cũ (user_version = 0) nhận schema hiện có.
+     */
+    private static Migration createBaseTables() {
+        return new SqlMigration(1, "Tạo bảng users và schedules",
+            """
+                CREATE TABLE IF NOT EXISTS users (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    username TEXT NOT NULL UNIQUE,
+                    password TEXT NOT NULL,
+                    email TEXT NOT NULL UNIQUE,
+                    created_at TEXT NOT NULL
+                )
+            """,
+            """
+                CREATE TABLE IF NOT EXISTS schedules (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    user_id INTEGER NOT NULL,
+                    title TEXT NOT NULL,
+                    description TEXT,
+                    note TEXT,
+                    start_time TEXT NOT NULL,
+                    end_time TEXT NOT NULL,
+                    is_reminder INTEGER DEFAULT 0,
+                    reminder_minutes INTEGER DEFAULT 15,
+                    category TEXT DEFAULT 'Khác',
+                    created_at TEXT NOT NULL,
+                    updated_at TEXT NOT NULL,
+                    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+                )
+            """
+        );
+    }
+
+    /**
+     * Version 2: index cho danh sách lịch theo user và cho truy vấn nhắc nhở
+     */
+    private static Migration createScheduleIndexes() {
+        return new SqlMigration(2, "Index (user_id, start_time) và partial index cho nhắc nhở",
+            "CREATE INDEX IF NOT EXISTS idx_schedules_user_start ON schedules(user_id, start_time)",
+            """
+                CREATE INDEX IF NOT EXISTS idx_schedules_reminder
+                ON schedules(user_id, start_time) WHERE is_reminder = 1
+            """
+        )
+            .expectIndex("SELECT * FROM schedules WHERE user_id = ? ORDER BY start_time ASC",
+                "idx_schedules_user_start")
+            .expectIndex("SELECT * FROM schedules WHERE user_id = ? AND date(start_time) = ? ORDER BY start_time ASC",
+                "idx_schedules_user_start")
+            .expectIndex("""
+                SELECT * FROM schedules
+                WHERE user_id = ? AND is_reminder = 1 AND start_time BETWEEN ? AND ?
+                ORDER BY start_time ASC
+            """, "idx_schedules_reminder");
+    }
+
+    /**
+     * Version 3: lưu start_time, end_time, created_at, updated_at dưới dạng INTEGER
+     * (số giây epoch của giờ địa phương, xem DatabaseManager.toEpochSecond).
+     * SQLite không đổi được kiểu cột nên bảng được dựng lại rồi đổi tên.
+     */
+    private static Migration convertScheduleTimesToEpoch() {
+        return new SqlMigration(3, "Chuyển thời gian trong schedules sang epoch INTEGER",
+            """
+                CREATE TABLE schedules_new (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    user_id INTEGER NOT NULL,
+                    title TEXT NOT NULL,
+                    description TEXT,
+                    note TEXT,
+                    start_time INTEGER NOT NULL,
+                    end_time INTEGER NOT NULL,
+                    is_reminder INTEGER DEFAULT 0,
+                    reminder_minutes INTEGER DEFAULT 15,
+                    category TEXT DEFAULT 'Khác',
+                    created_at INTEGER NOT NULL,
+                    updated_at INTEGER NOT NULL,
+                    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+                )
+            """,
+            """
+                INSERT INTO schedules_new
+                (id, user_id, title, description, note, start_time, end_time,
+                 is_reminder, reminder_minutes, category, created_at, updated_at)
+                SELECT id, user_id, title, description, note,
+                       CAST(strftime('%s', start_time) AS INTEGER),
+                       CAST(strftime('%s', end_time) AS INTEGER),
+                       is_reminder, reminder_minutes, category,
+                       CAST(strftime('%s', created_at) AS INTEGER),
+                       CAST(strftime('%s', updated_at) AS INTEGER)
+                FROM schedules
+            """,
+            // Giữ bộ đếm AUTOINCREMENT để không tái sử dụng id của lịch đã xóa
+            "DELETE FROM sqlite_sequence WHERE name = 'schedules_new'",
+            """
+                INSERT INTO sqlite_sequence (name, seq)
+                SELECT 'schedules_new', max(
+                    coalesce((SELECT seq FROM sqlite_sequence WHERE name = 'schedules'), 0),
+                    coalesce((SELECT max(id) FROM schedules_new), 0))
+            """,
+            "DROP TABLE schedules",
+            "ALTER TABLE schedules_new RENAME TO schedules",
+            "CREATE INDEX idx_schedules_user_start ON schedules(user_id, start_time)",
+            """
+                CREATE INDEX idx_schedules_reminder
+                ON schedules(user_id, start_time) WHERE is_reminder = 1
+            """
+        )
+            .expectIndex("SELECT * FROM schedules WHERE user_id = ? AND start_time >= ? AND start_time < ?",
+                "idx_schedules_user_start")
+            .expectIndex("SELECT * FROM schedules WHERE user_id = ? AND is_reminder = 1 AND start_time BETWEEN ? AND ?",
+                "idx_schedules_reminder");
+    }
+
+    /**
+     * Version 4: index theo end_time cho truy vấn lịch giao với một khoảng thời gian.
+     * Quét từ "from" trở đi (thường là hiện tại và tương lai) thay vì toàn bộ lịch sử,
+     * start_time nằm trong index để lọc điều kiện còn lại mà không cần đọc bảng.
+     */
+    private static Migration createScheduleEndTimeIndex() {
+        return new SqlMigration(4, "Index (user_id, end_time, start_time) cho truy vấn theo khoảng",
+            "CREATE INDEX IF NOT EXISTS idx_schedules_user_end ON schedules(user_id, end_time, start_time)"
+        )
+            .expectIndex("""
+                SELECT * FROM schedules
+                WHERE user_id = ? AND end_time >= ? AND +start_time < ? AND (end_time > ? OR start_time >= ?)
+                ORDER BY start_time ASC
+            """, "idx_schedules_user_end");
+    }
+
+    /**
+     * Version 5: chỉ mục full-text FTS5 cho title/description/note.
+     * Bảng FTS dùng external content (không lưu bản sao văn bản) và được đồng bộ
+     * với schedules bằng trigger. Tokenizer unicode61 bỏ dấu thanh khi so khớp,
+     * prefix='2 3' giúp truy vấn tiền tố ngắn không phải quét toàn bộ từ điển.
+     */
+    private static Migration createScheduleFullTextIndex() {
+        return new SqlMigration(5, "Chỉ mục FTS5 schedules_fts và trigger đồng bộ",
+            """
+                CREATE VIRTUAL TABLE schedules_fts USING fts5(
+                    title, description, note,
+                    content = 'schedules',
+                    content_rowid = 'id',
+                    tokenize = 'unicode61 remove_diacritics 2',
+                    prefix = '2 3'
+                )
+            """,
+            """
+                CREATE TRIGGER schedules_fts_ai AFTER INSERT ON schedules BEGIN
+                    INSERT INTO schedules_fts (rowid, title, description, note)
+                    VALUES (new.id, new.title, new.description, new.note);
+                END
+            """,
+            """
+                CREATE TRIGGER schedules_fts_ad AFTER DELETE ON schedules BEGIN
+                    INSERT INTO schedules_fts (schedules_fts, rowid, title, description, note)
+                    VALUES ('delete', old.id, old.title, old.description, old.note);
+                END
+            """,
+            """
+                CREATE TRIGGER schedules_fts_au AFTER UPDATE OF title, description, note ON schedules BEGIN
+                    INSERT INTO schedules_fts (schedules_fts, rowid, title, description, note)
+                    VALUES ('delete', old.id, old.title, old.description, old.note);
+                    INSERT INTO schedules_fts (rowid, title, description, note)
+                    VALUES (new.id, new.title, new.description, new.note);
+                END
+            """,
+            // Đánh chỉ mục cho dữ liệu đã có
+            "INSERT INTO schedules_fts (schedules_fts) VALUES ('rebuild')"
+        );
+    }
+
+    /**
+     * Version 7: cột reminder_at = start_time - reminder_minutes * 60 (epoch giây) được
+     * ghi sẵn khi thêm/sửa lịch, cùng partial index chỉ chứa lịch có bật nhắc nhở.
+     * "Nhắc nhở tiếp theo" trở thành một lần seek trên index thay vì quét lịch trong 24 giờ;
+     * index nhắc nhở cũ theo start_time không còn được dùng nên bị xóa.
+     */
+    private static Migration addReminderAtColumn() {
+        return new SqlMigration(7, "Cột reminder_at và partial index cho nhắc nhở",
+            "ALTER TABLE schedules ADD COLUMN reminder_at INTEGER",
+            "UPDATE schedules SET reminder_at = start_time - reminder_minutes * 60",
+            """
+                CREATE INDEX idx_schedules_reminder_at
+                ON schedules(user_id, reminder_at) WHERE is_reminder = 1
+            """,
+            "DROP INDEX IF EXISTS idx_schedules_reminder"
+        )
+            .expectIndex("""
+                SELECT * FROM schedules
+                WHERE user_id = ? AND is_reminder = 1 AND reminder_at BETWEEN ? AND ?
+                ORDER BY reminder_at ASC
+            """, "idx_schedules_reminder_at")
+            .expectIndex("""
+                SELECT * FROM schedules
+                WHERE user_id = ? AND is_reminder = 1 AND reminder_at > ?
+                ORDER BY reminder_at ASC LIMIT 1
+            """, "idx_schedules_reminder_at");
+    }
+
+    /**
+     * Version 8: partial index theo reminder_at cho bộ máy nhắc nhở dùng chung,
+     * nạp nhắc nhở sắp đến hạn của mọi user bằng một truy vấn
+     */
+    private static Migration createReminderDueIndex() {
+        return new SqlMigration(8, "Partial index reminder_at cho mọi user",
+            """
+                CREATE INDEX idx_schedules_reminder_due
+                ON schedules(reminder_at) WHERE is_reminder = 1
+            """
+        )
+            .expectIndex("""
+                SELECT * FROM schedules
+                WHERE is_reminder = 1 AND reminder_at > ? AND reminder_at <= ?
+                ORDER BY reminder_at ASC
+            """, "idx_schedules_reminder_due");
+    }
+
+    /**
+     * Version 9: nhật ký phát nhắc nhở (chỉ thêm, không sửa). Khóa chính
+     * (schedule_id, reminder_at) đảm bảo mỗi lần nhắc của một lịch chỉ được ghi nhận
+     * một lần, kể cả khi ứng dụng khởi động lại hoặc hai instance cùng chạy.
+     */
+    private static Migration createReminderDeliveryLog() {
+        return new SqlMigration(9, "Bảng nhật ký phát nhắc nhở reminder_deliveries",
+            """
+                CREATE TABLE reminder_deliveries (
+                    schedule_id INTEGER NOT NULL,
+                    reminder_at INTEGER NOT NULL,
+                    user_id INTEGER NOT NULL,
+                    delivered_at INTEGER NOT NULL,
+                    PRIMARY KEY (schedule_id, reminder_at)
+                ) WITHOUT ROWID
+            """
+        )
+            .expectIndex("""
+                SELECT s.* FROM schedules s
+                WHERE s.user_id = ? AND s.is_reminder = 1
+                AND s.reminder_at > ? AND s.reminder_at <= ?
+                AND NOT EXISTS (
+                    SELECT 1 FROM reminder_deliveries d
+                    WHERE d.schedule_id = s.id AND d.reminder_at = s.reminder_at
+                )
+                ORDER BY s.reminder_at ASC
+            """, "idx_schedules_reminder_at");
+    }
+
+    /**
+     * Version 10: bảng cấu hình dạng key/value của ứng dụng trên máy hiện tại
+     * (ví dụ work factor BCrypt đã hiệu chỉnh)
+     */
+    private static Migration createAppSettings() {
+        return new SqlMigration(10, "Bảng cấu hình app_settings",
+            """
+                CREATE TABLE app_settings (
+                    key TEXT PRIMARY KEY,
+                    value TEXT NOT NULL
+                ) WITHOUT ROWID
+            """
+        );
+    }
+
+    /**
+     * Version 11: phiên "ghi nhớ thiết bị". Chỉ lưu SHA-256 của token (token gốc nằm
+     * trong file trên máy người dùng), tra cứu qua UNIQUE index của token_hash.
+     */
+    private static Migration createSessions() {
+        return new SqlMigration(11, "Bảng phiên đăng nhập sessions",
+            """
+                CREATE TABLE sessions (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    user_id INTEGER NOT NULL,
+                    token_hash TEXT NOT NULL UNIQUE,
+                    created_at INTEGER NOT NULL,
+                    expires_at INTEGER NOT NULL,
+                    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+                )
+            """,
+            "CREATE INDEX idx_sessions_user ON sessions(user_id)"
+        )
+            .expectIndex("SELECT user_id, expires_at FROM sessions WHERE token_hash = ?",
+                "sqlite_autoindex_sessions_1");
+    }
+
+    /**
+     * Version 12: lịch lặp. Mỗi chuỗi là một dòng (thời gian của lần đầu tiên) với quy tắc
+     * trong cột recurrence và cận trên thời điểm kết thúc trong recurrence_end (NULL: không
+     * kết thúc); lần lặp được sinh ra khi truy vấn chứ không lưu thành dòng. Lần lặp được
+     * sửa riêng là một dòng thường trỏ về chuỗi qua series_id/occurrence_start và bị xóa
+     * cùng chuỗi. Chuỗi có reminder_at = NULL nên không lọt vào các index nhắc nhở cũ;
+     * các chuỗi có nhắc nhở được đọc qua idx_schedules_series_reminder, index theo thời
+     * điểm nhắc của lần đầu tiên.
+     */
+    private static Migration addRecurrenceColumns() {
+        return new SqlMigration(12, "Cột lặp lịch recurrence, recurrence_end, series_id, occurrence_start",
+            "ALTER TABLE schedules ADD COLUMN recurrence TEXT",
+            "ALTER TABLE schedules ADD COLUMN recurrence_end INTEGER",
+            "ALTER TABLE schedules ADD COLUMN series_id INTEGER",
+            "ALTER TABLE schedules ADD COLUMN occurrence_start INTEGER",
+            """
+                CREATE INDEX idx_schedules_series
+                ON schedules(user_id, start_time) WHERE recurrence IS NOT NULL
+            """,
+            """
+                CREATE INDEX idx_schedules_series_reminder
+                ON schedules(start_time - reminder_minutes * 60) WHERE recurrence IS NOT NULL AND is_reminder = 1
+            """,
+            """
+                CREATE INDEX idx_schedules_series_id
+                ON schedules(series_id) WHERE series_id IS NOT NULL
+            """,
+            """
+                CREATE TRIGGER schedules_series_ad AFTER DELETE ON schedules
+                WHEN old.recurrence IS NOT NULL BEGIN
+                    DELETE FROM schedules WHERE series_id = old.id;
+                END
+            """
+        )
+            .expectIndex("""
+                SELECT * FROM schedules s
+                WHERE s.user_id = ? AND s.recurrence IS NOT NULL
+                AND s.start_time < ? AND (s.recurrence_end IS NULL OR s.recurrence_end >= ?)
+                ORDER BY s.start_time
+            """, "idx_schedules_series")
+            .expectIndex("""
+                SELECT * FROM schedules s
+                WHERE s.recurrence IS NOT NULL AND s.is_reminder = 1
+                AND s.start_time - s.reminder_minutes * 60 <= ?
+                AND (s.recurrence_end IS NULL OR s.recurrence_end >= ?)
+            """, "idx_schedules_series_reminder")
+            .expectIndex("SELECT id FROM schedules WHERE series_id = ? AND user_id = ?",
+                "idx_schedules_series_id");
+    }
+
+    /**
+     * Version 13: tổng hợp thời gian bận của lịch không lặp. idx_schedules_busy là index phủ
+     * (user_id, start_time, end_time) để đọc thời gian theo đúng thứ tự start_time chỉ từ
+     * index; idx_schedules_busy_length cho độ dài lớn nhất của lịch (một lần seek), từ đó
+     * biết lịch bắt đầu sớm nhất là bao lâu trước khoảng cần xem mà vẫn còn giao với nó.
+     */
+    private static Migration createBusyIndexes() {
+        return new SqlMigration(13, "Index cho tổng hợp thời gian bận",
+            """
+                CREATE INDEX idx_schedules_busy
+                ON schedules(user_id, start_time, end_time) WHERE recurrence IS NULL
+            """,
+            """
+                CREATE INDEX idx_schedules_busy_length
+                ON schedules(user_id, end_time - start_time) WHERE recurrence IS NULL
+            """
+        )
+            .expectIndex("""
+                SELECT start_time, end_time FROM schedules
+                WHERE user_id = ? AND recurrence IS NULL AND start_time >= ? AND start_time < ?
+                ORDER BY start_time
+            """, "idx_schedules_busy")
+            .expectIndex("SELECT MAX(end_time - start_time) FROM schedules WHERE user_id = ? AND recurrence IS NULL",
+                "idx_schedules_busy_length");
+    }
+
+    /**
+     * Version 14: lịch không lặp dài hơn một ngày nằm trong partial index riêng. Lịch ngắn
+     * giao với một khoảng đều bắt đầu không quá một ngày trước khoảng đó nên được quét
+     * trên idx_schedules_busy; lịch dài (hiếm) được tìm theo end_time trên index này, nên
+     * một lịch kéo dài nhiều tuần không kéo dài đoạn quét. Ngưỡng 86400 giây phải trùng
+     * với ScheduleService.LONG_SCHEDULE_SECONDS. Thay cho idx_schedules_busy_length của
+     * version 13: quét từ "from" trừ độ dài lớn nhất bị kéo dài bởi chỉ một lịch dài.
+     */
+    private static Migration createLongScheduleIndex() {
+        return new SqlMigration(14, "Partial index cho lịch dài hơn một ngày",
+            "DROP INDEX idx_schedules_busy_length",
+            """
+                CREATE INDEX idx_schedules_busy_long
+                ON schedules(user_id, end_time, start_time)
+                WHERE recurrence IS NULL AND end_time - start_time > 86400
+            """
+        )
+            .expectIndex("""
+                SELECT start_time, end_time FROM schedules
+                WHERE user_id = ? AND recurrence IS NULL AND end_time - start_time > 86400
+                AND end_time > ? AND start_time < ?
+            """, "idx_schedules_busy_long");
+    }
+}
@@ -0,0 +1,130 @@
+package com.calendar.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Áp dụng các migration theo thứ tự version khi ứng dụng khởi động.
+ * Phiên bản schema hiện tại được lưu trong PRAGMA user_version của file database.
+ */
+public class SchemaMigrator {
+    // Bật khi phát triển (-Dcalendar.db.strictQueryPlans=true) để truy vấn không dùng index làm hỏng khởi động
+    private static final boolean STRICT_QUERY_PLANS = Boolean.getBoolean("calendar.db.strictQueryPlans");
+
+    private final List<Migration> migrations;
+    private final boolean strictQueryPlans;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        this(migrations, STRICT_QUERY_PLANS);
+    }
+
+    /**
+     * strictQueryPlans: true thì migrate() ném SQLException khi một kiểm tra query plan
+     * thất bại, false thì chỉ in cảnh báo
+     */
+    public SchemaMigrator(List<Migration> migrations, boolean strictQueryPlans) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).getVersion() == sorted.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Trùng version migration: " + sorted.get(i).getVersion());
+            }
+        }
+        this.migrations = sorted;
+        this.strictQueryPlans = strictQueryPlans;
+    }
+
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    /**
+     * Đưa database lên version mới nhất. Mỗi migration chạy trong một transaction riêng,
+     * user_version được cập nhật trong cùng transaction nên không bao giờ bị áp dụng dở dang.
+     */
+    public void migrate(Connection connection) throws SQLException {
+        int currentVersion = readUserVersion(connection);
+        if (currentVersion > getLatestVersion()) {
+            System.err.println("Database có version " + currentVersion
+                + " mới hơn ứng dụng (" + getLatestVersion() + "), bỏ qua migration");
+            return;
+        }
+
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= currentVersion) {
+                continue;
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                // Đọc lại trong transaction phòng khi instance khác vừa migrate xong
+                if (readUserVersion(connection) >= migration.getVersion()) {
+                    connection.commit();
+                    continue;
+                }
+
+                migration.apply(connection);
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("PRAGMA user_version = " + migration.getVersion());
+                }
+                connection.commit();
+                System.out.println("Đã áp dụng migration " + migration.getVersion()
+                    + ": " + migration.getDescription());
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+
+            reportQueryPlanFailures(migration, verifyQueryPlans(connection, migration));
+        }
+    }
+
+    /**
+     * Đường xử lý duy nhất cho kiểm tra query plan thất bại: ném lỗi ở chế độ strict,
+     * ngược lại in một cảnh báo gồm mọi truy vấn không dùng đúng index
+     */
+    void reportQueryPlanFailures(Migration migration, List<String> failures) throws SQLException {
+        if (failures.isEmpty()) {
+            return;
+        }
+        String message = "Migration " + migration.getVersion() + " (" + migration.getDescription() + "): "
+            + String.join("; ", failures);
+        if (strictQueryPlans) {
+            throw new SQLException("Kiểm tra query plan thất bại. " + message);
+        }
+        System.err.println("Cảnh báo query plan. " + message);
+    }
+
+    /**
+     * Kiểm tra bằng EXPLAIN QUERY PLAN rằng các truy vấn khai báo trong migration dùng đúng index,
+     * trả về mô tả các truy vấn không đạt (migrate() chuyển chúng cho reportQueryPlanFailures)
+     */
+    public List<String> verifyQueryPlans(Connection connection, Migration migration) throws SQLException {
+        List<String> failures = new ArrayList<>();
+        for (QueryPlanCheck check : migration.getQueryPlanChecks()) {
+            List<String> plan = check.explain(connection);
+            if (check.isSatisfiedBy(plan)) {
+                System.out.println("  Query plan OK (" + check.getExpectedIndex() + "): " + String.join("; ", plan));
+            } else {
+                failures.add("Truy vấn không dùng index " + check.getExpectedIndex()
+                    + ": " + String.join(", ", plan));
+            }
+        }
+        return failures;
+    }
+
+    public static int readUserVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
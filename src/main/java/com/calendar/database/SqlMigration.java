@@ -0,0 +1,55 @@
+package com.calendar.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migration chỉ gồm các câu lệnh SQL chạy tuần tự
+ */
+public class SqlMigration implements Migration {
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+    private final List<QueryPlanCheck> queryPlanChecks = new ArrayList<>();
+
+    public SqlMigration(int version, String description, String... statements) {
+        this.version = version;
+        this.description = description;
+        this.statements = List.of(statements);
+    }
+
+    /**
+     * Khai báo một truy vấn phải dùng index chỉ định sau khi migration được áp dụng
+     */
+    public SqlMigration expectIndex(String query, String indexName) {
+        queryPlanChecks.add(new QueryPlanCheck(query, indexName));
+        return this;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public void apply(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    @Override
+    public List<QueryPlanCheck> getQueryPlanChecks() {
+        return List.copyOf(queryPlanChecks);
+    }
+}
@@ -0,0 +1,77 @@
+package com.calendar.model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kết quả của một thao tác ghi hàng loạt, theo từng dòng đầu vào
+ */
+public class BatchResult {
+    private final int[] ids; // id của lịch theo thứ tự đầu vào, 0 nếu dòng bị lỗi
+    private final Map<Integer, String> errors = new LinkedHashMap<>(); // chỉ số dòng -> lỗi
+    private final Map<Integer, String> conflicts = new LinkedHashMap<>(); // chỉ số dòng -> lịch bị trùng (chỉ cảnh báo)
+
+    public BatchResult(int size) {
+        this.ids = new int[size];
+    }
+
+    public void markSuccess(int row, int id) {
+        ids[row] = id;
+        errors.remove(row);
+    }
+
+    public void markFailure(int row, String error) {
+        ids[row] = 0;
+        errors.put(row, error);
+    }
+
+    /**
+     * Ghi nhận dòng trùng thời gian với lịch khác; dòng vẫn được thêm bình thường
+     */
+    public void markConflict(int row, String description) {
+        conflicts.put(row, description);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isSuccess(int row) {
+        return !errors.containsKey(row);
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public int[] getIds() {
+        return ids.clone();
+    }
+
+    public Map<Integer, String> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    public Map<Integer, String> getConflicts() {
+        return Collections.unmodifiableMap(conflicts);
+    }
+
+    public int getSuccessCount() {
+        return ids.length - errors.size();
+    }
+
+    public int getFailureCount() {
+        return errors.size();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "size=" + ids.length +
+                ", success=" + getSuccessCount() +
+                ", errors=" + errors +
+                ", conflicts=" + conflicts.size() +
+                '}';
+    }
+}
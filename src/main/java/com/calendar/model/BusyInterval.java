@@ -0,0 +1,16 @@
+package com.calendar.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Một khoảng bận [start, end) sau khi gộp các lịch chồng lên hoặc nối tiếp nhau.
+ * Chỉ mang thời gian, không kèm thông tin lịch, để màn hình tháng hoặc client bên ngoài
+ * vẽ thời gian rảnh/bận từ một danh sách gọn.
+ */
+public record BusyInterval(LocalDateTime start, LocalDateTime end) {
+
+    public Duration getDuration() {
+        return Duration.between(start, end);
+    }
+}
@@ -0,0 +1,315 @@
+package com.calendar.model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Quy tắc lặp của một chuỗi lịch: hằng ngày, hằng tuần (cùng thứ với lần đầu) hoặc hằng
+ * tháng (cùng ngày trong tháng, tháng không có ngày đó thì bỏ qua), mỗi "interval" đơn vị,
+ * đến hết ngày "until" (null là không kết thúc), trừ các lần bị bỏ (exceptions).
+ *
+ * Lần lặp được tính từ thời điểm bắt đầu của lần đầu tiên (anchor) và chỉ sinh ra cho
+ * khoảng thời gian được hỏi: startsBetween nhảy thẳng tới khoảng đó nên chi phí tỷ lệ
+ * với số lần lặp trong khoảng, không phụ thuộc chuỗi đã kéo dài bao lâu. Mọi lần lặp
+ * cùng pha với anchor nên một lần lặp bất kỳ cũng dùng được làm anchor cho các lần sau.
+ *
+ * Đối tượng bất biến; được lưu trong cột schedules.recurrence dưới dạng
+ * "FREQ=WEEKLY;INTERVAL=2;UNTIL=2026-12-31;EXDATE=2026-05-04T09:00,2026-05-18T09:00".
+ */
+public final class Recurrence {
+
+    public enum Frequency {
+        DAILY("Hằng ngày", "ngày"),
+        WEEKLY("Hằng tuần", "tuần"),
+        MONTHLY("Hằng tháng", "tháng");
+
+        private final String label;
+        private final String unit;
+
+        Frequency(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDate until;
+    private final NavigableSet<LocalDateTime> exceptions;
+
+    public Recurrence(Frequency frequency, int interval, LocalDate until) {
+        this(frequency, interval, until, new TreeSet<>());
+    }
+
+    private Recurrence(Frequency frequency, int interval, LocalDate until, NavigableSet<LocalDateTime> exceptions) {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Thiếu tần suất lặp");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("Khoảng lặp phải lớn hơn 0: " + interval);
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.until = until;
+        this.exceptions = Collections.unmodifiableNavigableSet(exceptions);
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Thời điểm bắt đầu của các lần lặp bị bỏ (đã hủy hoặc đã được sửa riêng)
+     */
+    public NavigableSet<LocalDateTime> getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Bản sao có thêm một lần lặp bị bỏ
+     */
+    public Recurrence withException(LocalDateTime occurrenceStart) {
+        NavigableSet<LocalDateTime> copy = new TreeSet<>(exceptions);
+        copy.add(occurrenceStart);
+        return new Recurrence(frequency, interval, until, copy);
+    }
+
+    /**
+     * Bản sao với tần suất/khoảng/ngày kết thúc mới, giữ nguyên các lần lặp bị bỏ
+     * (khi anchor bị dời, dùng thêm withExceptionsShifted)
+     */
+    public Recurrence withRule(Frequency frequency, int interval, LocalDate until) {
+        return new Recurrence(frequency, interval, until, new TreeSet<>(exceptions));
+    }
+
+    /**
+     * Bản sao có mọi lần lặp bị bỏ dời đi "shift", dùng khi thời điểm bắt đầu của chuỗi bị dời
+     * để các lần đã hủy/sửa riêng vẫn khớp với lần lặp tương ứng
+     */
+    public Recurrence withExceptionsShifted(Duration shift) {
+        NavigableSet<LocalDateTime> shifted = new TreeSet<>();
+        for (LocalDateTime exception : exceptions) {
+            shifted.add(exception.plus(shift));
+        }
+        return new Recurrence(frequency, interval, until, shifted);
+    }
+
+    /**
+     * Thời điểm bắt đầu các lần lặp trong [from, to) (to null: không giới hạn), tối đa limit lần
+     */
+    public List<LocalDateTime> startsBetween(LocalDateTime anchor, LocalDateTime from, LocalDateTime to, int limit) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        LocalDateTime last = until != null ? until.plusDays(1).atStartOfDay() : null; // loại trừ
+        if (from.isBefore(anchor)) {
+            from = anchor;
+        }
+
+        if (frequency == Frequency.MONTHLY) {
+            YearMonth first = YearMonth.from(anchor);
+            long step = Math.max(0, ChronoUnit.MONTHS.between(first, YearMonth.from(from)) / interval);
+            for (; starts.size() < limit; step++) {
+                YearMonth month = first.plusMonths(step * interval);
+                LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+                if ((to != null && !monthStart.isBefore(to)) || (last != null && !monthStart.isBefore(last))) {
+                    break;
+                }
+                if (anchor.getDayOfMonth() > month.lengthOfMonth()) {
+                    continue;
+                }
+                LocalDateTime start = month.atDay(anchor.getDayOfMonth()).atTime(anchor.toLocalTime());
+                if (!start.isBefore(from)) {
+                    addStart(starts, start, to, last);
+                }
+            }
+            return starts;
+        }
+
+        long periodDays = frequency == Frequency.WEEKLY ? 7L * interval : interval;
+        long periodSeconds = periodDays * 86_400;
+        long behind = from.toEpochSecond(ZoneOffset.UTC) - anchor.toEpochSecond(ZoneOffset.UTC);
+        long step = behind <= 0 ? 0 : Math.floorDiv(behind + periodSeconds - 1, periodSeconds);
+        for (; starts.size() < limit; step++) {
+            LocalDateTime start = anchor.plusDays(step * periodDays);
+            if ((to != null && !start.isBefore(to)) || (last != null && !start.isBefore(last))) {
+                break;
+            }
+            addStart(starts, start, to, last);
+        }
+        return starts;
+    }
+
+    private void addStart(List<LocalDateTime> starts, LocalDateTime start, LocalDateTime to, LocalDateTime last) {
+        if ((to == null || start.isBefore(to)) && (last == null || start.isBefore(last))
+                && !exceptions.contains(start)) {
+            starts.add(start);
+        }
+    }
+
+    /**
+     * Lần lặp đầu tiên bắt đầu sau thời điểm "after", hoặc null nếu chuỗi đã hết
+     */
+    public LocalDateTime nextStart(LocalDateTime anchor, LocalDateTime after) {
+        List<LocalDateTime> starts = startsBetween(anchor, after.plusSeconds(1), null, 1);
+        return starts.isEmpty() ? null : starts.get(0);
+    }
+
+    /**
+     * Cận trên của thời điểm kết thúc lần lặp cuối (null nếu chuỗi không kết thúc),
+     * lưu ở cột recurrence_end để lọc các chuỗi giao với một khoảng thời gian
+     */
+    public LocalDateTime seriesEnd(LocalDateTime anchor, LocalDateTime anchorEnd) {
+        if (until == null) {
+            return null;
+        }
+        LocalDateTime lastStart = until.plusDays(1).atStartOfDay();
+        return lastStart.plus(Duration.between(anchor, anchorEnd));
+    }
+
+    /**
+     * Các lần lặp của chuỗi series giao với [from, to) (cùng điều kiện với truy vấn theo
+     * khoảng của ScheduleService), sắp theo thời gian bắt đầu
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends ScheduleSummary> List<T> expand(T series, LocalDateTime from, LocalDateTime to) {
+        Recurrence recurrence = series.getRecurrence();
+        Duration duration = Duration.between(series.getStartTime(), series.getEndTime());
+        List<T> occurrences = new ArrayList<>();
+        for (LocalDateTime start : recurrence.startsBetween(series.getStartTime(), from.minus(duration), to,
+                                                            Integer.MAX_VALUE)) {
+            LocalDateTime end = start.plus(duration);
+            if (!end.isBefore(from) && (end.isAfter(from) || !start.isBefore(from))) {
+                occurrences.add((T) series.occurrenceAt(start));
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Mô tả ngắn để hiển thị, ví dụ "Hằng tuần (mỗi 2 tuần) đến 31/12/2026"
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder(frequency.getLabel());
+        if (interval > 1) {
+            sb.append(" (mỗi ").append(interval).append(' ').append(frequency.getUnit()).append(')');
+        }
+        if (until != null) {
+            sb.append(" đến ").append(until.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+        }
+        if (!exceptions.isEmpty()) {
+            sb.append(", bỏ ").append(exceptions.size()).append(" lần");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Chuỗi lưu trong database
+     */
+    public String toRule() {
+        StringBuilder sb = new StringBuilder("FREQ=").append(frequency.name());
+        sb.append(";INTERVAL=").append(interval);
+        if (until != null) {
+            sb.append(";UNTIL=").append(until);
+        }
+        if (!exceptions.isEmpty()) {
+            sb.append(";EXDATE=");
+            boolean first = true;
+            for (LocalDateTime exception : exceptions) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append(exception);
+                first = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Đọc chuỗi do toRule tạo ra; null hoặc rỗng nghĩa là lịch không lặp
+     */
+    public static Recurrence parse(String rule) {
+        if (rule == null || rule.isBlank()) {
+            return null;
+        }
+
+        Frequency frequency = null;
+        int interval = 1;
+        LocalDate until = null;
+        NavigableSet<LocalDateTime> exceptions = new TreeSet<>();
+        try {
+            for (String part : rule.split(";")) {
+                int eq = part.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Quy tắc lặp không hợp lệ: " + rule);
+                }
+                String value = part.substring(eq + 1);
+                switch (part.substring(0, eq)) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "UNTIL" -> until = LocalDate.parse(value);
+                    case "EXDATE" -> {
+                        for (String exception : value.split(",")) {
+                            exceptions.add(LocalDateTime.parse(exception));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Quy tắc lặp không hợp lệ: " + rule);
+                }
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Quy tắc lặp không hợp lệ: " + rule, e);
+        }
+        return new Recurrence(frequency, interval, until, exceptions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Recurrence other)) {
+            return false;
+        }
+        return frequency == other.frequency
+                && interval == other.interval
+                && Objects.equals(until, other.until)
+                && exceptions.equals(other.exceptions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, until, exceptions);
+    }
+
+    @Override
+    public String toString() {
+        return toRule();
+    }
+}
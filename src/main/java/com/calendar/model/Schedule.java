@@ -2,17 +2,9 @@ package com.calendar.model;
 
 import java.time.LocalDateTime;
 
-public class Schedule {
-    private int id;
-    private int userId;
-    private String title;
+public class Schedule extends ScheduleSummary {
     private String description;
     private String note;
-    private LocalDateTime startTime;
-    private LocalDateTime endTime;
-    private boolean isReminder;
-    private int reminderMinutes; // Số phút trước khi nhắc nhở
-    private String category; // Công việc, Sinh hoạt, Học tập, ...
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -20,43 +12,37 @@ public class Schedule {
     }
 
     public Schedule(int userId, String title, String description, LocalDateTime startTime, LocalDateTime endTime) {
-        this.userId = userId;
-        this.title = title;
+        setUserId(userId);
+        setTitle(title);
         this.description = description;
-        this.startTime = startTime;
-        this.endTime = endTime;
+        setStartTime(startTime);
+        setEndTime(endTime);
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
-        this.isReminder = false;
-        this.reminderMinutes = 15;
-        this.category = "Khác";
+        setReminder(false);
+        setReminderMinutes(15);
+        setCategory("Khác");
     }
 
-    // Getters and Setters
-    public int getId() {
-        return id;
-    }
-
-    public void setId(int id) {
-        this.id = id;
-    }
-
-    public int getUserId() {
-        return userId;
-    }
-
-    public void setUserId(int userId) {
-        this.userId = userId;
-    }
-
-    public String getTitle() {
-        return title;
+    /**
+     * Tạo bản sao độc lập của một lịch (để sửa mà không ảnh hưởng bản gốc)
+     */
+    public Schedule(Schedule other) {
+        super(other);
+        this.description = other.description;
+        this.note = other.note;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    @Override
+    public Schedule occurrenceAt(LocalDateTime start) {
+        Schedule occurrence = new Schedule(this);
+        occurrence.moveToOccurrence(this, start);
+        return occurrence;
     }
 
+    // Getters and Setters
     public String getDescription() {
         return description;
     }
@@ -73,46 +59,6 @@ public class Schedule {
         this.note = note;
     }
 
-    public LocalDateTime getStartTime() {
-        return startTime;
-    }
-
-    public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
-    }
-
-    public LocalDateTime getEndTime() {
-        return endTime;
-    }
-
-    public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
-    }
-
-    public boolean isReminder() {
-        return isReminder;
-    }
-
-    public void setReminder(boolean reminder) {
-        isReminder = reminder;
-    }
-
-    public int getReminderMinutes() {
-        return reminderMinutes;
-    }
-
-    public void setReminderMinutes(int reminderMinutes) {
-        this.reminderMinutes = reminderMinutes;
-    }
-
-    public String getCategory() {
-        return category;
-    }
-
-    public void setCategory(String category) {
-        this.category = category;
-    }
-
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -132,13 +78,13 @@ public class Schedule {
     @Override
     public String toString() {
         return "Schedule{" +
-                "id=" + id +
-                ", userId=" + userId +
-                ", title='" + title + '\'' +
-                ", startTime=" + startTime +
-                ", endTime=" + endTime +
-                ", isReminder=" + isReminder +
-                ", category='" + category + '\'' +
+                "id=" + getId() +
+                ", userId=" + getUserId() +
+                ", title='" + getTitle() + '\'' +
+                ", startTime=" + getStartTime() +
+                ", endTime=" + getEndTime() +
+                ", isReminder=" + isReminder() +
+                ", category='" + getCategory() + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+}
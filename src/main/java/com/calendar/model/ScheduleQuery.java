@@ -0,0 +1,196 @@
+package com.calendar.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Điều kiện truy vấn danh sách lịch, kết hợp tùy ý: từ khóa, khoảng thời gian,
+ * danh mục và chỉ lấy lịch có nhắc nhở. Đối tượng bất biến, tạo bằng Builder.
+ *
+ * Truy vấn không có từ khóa có thể phân trang theo khóa (start_time, id): after()
+ * lấy các lịch đứng sau con trỏ, before() lấy các lịch đứng ngay trước con trỏ
+ * (kết quả vẫn sắp tăng dần). Truy vấn có từ khóa sắp theo độ liên quan nên không
+ * dùng được con trỏ.
+ */
+public class ScheduleQuery {
+    private final int userId;
+    private final String keyword; // null hoặc rỗng: không lọc theo từ khóa
+    private final LocalDateTime rangeStart; // null: không lọc theo thời gian
+    private final LocalDateTime rangeEnd;
+    private final String category; // null: mọi danh mục
+    private final boolean reminderOnly;
+    private final int limit; // < 0: không giới hạn
+    private final Cursor after; // null: từ đầu
+    private final Cursor before; // null: đến cuối
+
+    /**
+     * Vị trí trong thứ tự (start_time, id) dùng cho phân trang theo khóa
+     */
+    public record Cursor(LocalDateTime startTime, int id) {
+    }
+
+    private ScheduleQuery(Builder builder) {
+        this.userId = builder.userId;
+        this.keyword = builder.keyword;
+        this.rangeStart = builder.rangeStart;
+        this.rangeEnd = builder.rangeEnd;
+        this.category = builder.category;
+        this.reminderOnly = builder.reminderOnly;
+        this.limit = builder.limit;
+        this.after = builder.after;
+        this.before = builder.before;
+    }
+
+    public static Builder forUser(int userId) {
+        return new Builder(userId);
+    }
+
+    // Getters
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public boolean hasKeyword() {
+        return keyword != null && !keyword.isBlank();
+    }
+
+    public LocalDateTime getRangeStart() {
+        return rangeStart;
+    }
+
+    public LocalDateTime getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public boolean hasRange() {
+        return rangeStart != null && rangeEnd != null;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public boolean hasCategory() {
+        return category != null && !category.isBlank();
+    }
+
+    public boolean isReminderOnly() {
+        return reminderOnly;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Cursor getAfter() {
+        return after;
+    }
+
+    public Cursor getBefore() {
+        return before;
+    }
+
+    /**
+     * Builder chứa sẵn mọi điều kiện của truy vấn này, để tạo trang khác của cùng truy vấn
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder(userId)
+            .keyword(keyword)
+            .category(category)
+            .reminderOnly(reminderOnly)
+            .limit(limit);
+        builder.rangeStart = rangeStart;
+        builder.rangeEnd = rangeEnd;
+        builder.after = after;
+        builder.before = before;
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleQuery{" +
+                "userId=" + userId +
+                ", keyword='" + keyword + '\'' +
+                ", rangeStart=" + rangeStart +
+                ", rangeEnd=" + rangeEnd +
+                ", category='" + category + '\'' +
+                ", reminderOnly=" + reminderOnly +
+                ", limit=" + limit +
+                ", after=" + after +
+                ", before=" + before +
+                '}';
+    }
+
+    public static class Builder {
+        private final int userId;
+        private String keyword;
+        private LocalDateTime rangeStart;
+        private LocalDateTime rangeEnd;
+        private String category;
+        private boolean reminderOnly;
+        private int limit = -1;
+        private Cursor after;
+        private Cursor before;
+
+        private Builder(int userId) {
+            this.userId = userId;
+        }
+
+        public Builder keyword(String keyword) {
+            this.keyword = keyword;
+            return this;
+        }
+
+        /**
+         * Lịch giao với khoảng [from, to)
+         */
+        public Builder between(LocalDateTime from, LocalDateTime to) {
+            this.rangeStart = from;
+            this.rangeEnd = to;
+            return this;
+        }
+
+        public Builder category(String category) {
+            this.category = category;
+            return this;
+        }
+
+        public Builder reminderOnly(boolean reminderOnly) {
+            this.reminderOnly = reminderOnly;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Chỉ lấy lịch đứng sau (startTime, id) theo thứ tự (start_time, id)
+         */
+        public Builder after(LocalDateTime startTime, int id) {
+            this.after = new Cursor(startTime, id);
+            this.before = null;
+            return this;
+        }
+
+        /**
+         * Chỉ lấy lịch đứng trước (startTime, id); cùng limit thì lấy các lịch gần con trỏ nhất
+         */
+        public Builder before(LocalDateTime startTime, int id) {
+            this.before = new Cursor(startTime, id);
+            this.after = null;
+            return this;
+        }
+
+        public ScheduleQuery build() {
+            if ((after != null || before != null) && keyword != null && !keyword.isBlank()) {
+                throw new IllegalArgumentException("Truy vấn theo từ khóa không hỗ trợ phân trang theo con trỏ");
+            }
+            return new ScheduleQuery(this);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.calendar.model;
+
+public class ScheduleSearchResult {
+    private final Schedule schedule;
+    private final String snippet; // Đoạn trích có đánh dấu [từ khớp]
+    private final double rank; // Điểm bm25, càng nhỏ càng liên quan
+
+    public ScheduleSearchResult(Schedule schedule, String snippet, double rank) {
+        this.schedule = schedule;
+        this.snippet = snippet;
+        this.rank = rank;
+    }
+
+    // Getters
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public double getRank() {
+        return rank;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleSearchResult{" +
+                "scheduleId=" + schedule.getId() +
+                ", snippet='" + snippet + '\'' +
+                ", rank=" + rank +
+                '}';
+    }
+}
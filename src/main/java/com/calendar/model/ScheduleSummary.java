@@ -0,0 +1,205 @@
+package com.calendar.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Các trường của lịch dùng cho danh sách (bảng lịch, bộ nhớ đệm): không có mô tả và
+ * ghi chú vốn có thể là văn bản dài. Schedule kế thừa lớp này và thêm các trường chi tiết.
+ */
+public class ScheduleSummary {
+    private int id;
+    private int userId;
+    private String title;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private boolean isReminder;
+    private int reminderMinutes; // Số phút trước khi nhắc nhở
+    private String category; // Công việc, Sinh hoạt, Học tập, ...
+    private Recurrence recurrence; // null: lịch không lặp
+    private int seriesId; // id chuỗi lặp của một lần lặp hoặc lần lặp đã sửa riêng, 0 nếu không có
+    private LocalDateTime occurrenceStart; // thời điểm bắt đầu gốc của lần lặp trong chuỗi
+
+    public ScheduleSummary() {
+    }
+
+    /**
+     * Sao chép phần tóm tắt của một lịch (bỏ mô tả/ghi chú nếu là Schedule)
+     */
+    public ScheduleSummary(ScheduleSummary other) {
+        this.id = other.id;
+        this.userId = other.userId;
+        this.title = other.title;
+        this.startTime = other.startTime;
+        this.endTime = other.endTime;
+        this.isReminder = other.isReminder;
+        this.reminderMinutes = other.reminderMinutes;
+        this.category = other.category;
+        this.recurrence = other.recurrence;
+        this.seriesId = other.seriesId;
+        this.occurrenceStart = other.occurrenceStart;
+    }
+
+    /**
+     * Lần lặp của chuỗi này bắt đầu tại "start" (cùng thời lượng, cùng id với chuỗi)
+     */
+    public ScheduleSummary occurrenceAt(LocalDateTime start) {
+        ScheduleSummary occurrence = new ScheduleSummary(this);
+        occurrence.moveToOccurrence(this, start);
+        return occurrence;
+    }
+
+    protected void moveToOccurrence(ScheduleSummary series, LocalDateTime start) {
+        this.startTime = start;
+        this.endTime = start.plus(Duration.between(series.startTime, series.endTime));
+        this.seriesId = series.id;
+        this.occurrenceStart = start;
+    }
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public boolean isReminder() {
+        return isReminder;
+    }
+
+    public void setReminder(boolean reminder) {
+        isReminder = reminder;
+    }
+
+    public int getReminderMinutes() {
+        return reminderMinutes;
+    }
+
+    public void setReminderMinutes(int reminderMinutes) {
+        this.reminderMinutes = reminderMinutes;
+    }
+
+    /**
+     * Thời điểm nhắc nhở (startTime - reminderMinutes), được lưu ở cột reminder_at
+     */
+    public LocalDateTime getReminderTime() {
+        return startTime.minusMinutes(reminderMinutes);
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    public int getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(int seriesId) {
+        this.seriesId = seriesId;
+    }
+
+    public LocalDateTime getOccurrenceStart() {
+        return occurrenceStart;
+    }
+
+    public void setOccurrenceStart(LocalDateTime occurrenceStart) {
+        this.occurrenceStart = occurrenceStart;
+    }
+
+    /**
+     * Dòng chuỗi lặp được lưu trong database (thời gian là của lần đầu tiên)
+     */
+    public boolean isSeries() {
+        return recurrence != null && occurrenceStart == null;
+    }
+
+    /**
+     * Một lần lặp được sinh ra từ chuỗi khi truy vấn theo khoảng thời gian, không có dòng riêng
+     */
+    public boolean isOccurrence() {
+        return recurrence != null && occurrenceStart != null;
+    }
+
+    /**
+     * Khóa duy nhất trong một danh sách: các lần lặp của cùng chuỗi có chung id
+     */
+    public String getRowKey() {
+        return isOccurrence() ? id + "@" + occurrenceStart : String.valueOf(id);
+    }
+
+    /**
+     * So sánh các trường hiển thị trong danh sách với một lịch khác
+     */
+    public boolean hasSameContent(ScheduleSummary other) {
+        return other != null
+                && id == other.id
+                && userId == other.userId
+                && isReminder == other.isReminder
+                && reminderMinutes == other.reminderMinutes
+                && Objects.equals(title, other.title)
+                && Objects.equals(startTime, other.startTime)
+                && Objects.equals(endTime, other.endTime)
+                && Objects.equals(category, other.category)
+                && seriesId == other.seriesId
+                && Objects.equals(occurrenceStart, other.occurrenceStart)
+                && Objects.equals(recurrence, other.recurrence);
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", category='" + category + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,116 @@
+package com.calendar.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.calendar.model.BatchResult;
+import com.calendar.model.BusyInterval;
+import com.calendar.model.Schedule;
+import com.calendar.model.ScheduleQuery;
+import com.calendar.model.ScheduleSearchResult;
+
+/**
+ * Facade bất đồng bộ của ScheduleService để không chạy truy vấn trên JavaFX Application Thread.
+ *
+ * Mọi lời gọi chạy trên một executor riêng (thread daemon) có kích thước bằng số
+ * connection đọc của DatabaseManager, và trả về CompletableFuture. Người gọi tự
+ * chuyển kết quả về FX thread bằng Platform.runLater.
+ */
+public class AsyncScheduleService {
+    private static final int POOL_SIZE = Math.max(2, Integer.getInteger("calendar.db.readPoolSize", 4));
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(POOL_SIZE, new DaemonThreadFactory());
+
+    private final ScheduleService scheduleService;
+
+    public AsyncScheduleService(ScheduleService scheduleService) {
+        this.scheduleService = scheduleService;
+    }
+
+    public ScheduleService getScheduleService() {
+        return scheduleService;
+    }
+
+    /**
+     * Chạy một công việc bất kỳ trên executor của database
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, EXECUTOR);
+    }
+
+    public CompletableFuture<List<Schedule>> getAllSchedulesByUser(int userId) {
+        return submit(() -> scheduleService.getAllSchedulesByUser(userId));
+    }
+
+    public CompletableFuture<List<Schedule>> getSchedulesInRange(int userId, LocalDateTime from, LocalDateTime to) {
+        return submit(() -> scheduleService.getSchedulesInRange(userId, from, to));
+    }
+
+    public CompletableFuture<List<BusyInterval>> getBusyIntervals(int userId, LocalDateTime from, LocalDateTime to) {
+        return submit(() -> scheduleService.getBusyIntervals(userId, from, to));
+    }
+
+    public CompletableFuture<List<Schedule>> getSchedulesByCategory(int userId, String category) {
+        return submit(() -> scheduleService.getSchedulesByCategory(userId, category));
+    }
+
+    public CompletableFuture<Schedule> getScheduleById(int scheduleId, int userId) {
+        return submit(() -> scheduleService.getScheduleById(scheduleId, userId));
+    }
+
+    public CompletableFuture<List<ScheduleSearchResult>> findSchedules(ScheduleQuery query) {
+        return submit(() -> scheduleService.findSchedules(query));
+    }
+
+    public CompletableFuture<List<ScheduleSearchResult>> searchSchedulesRanked(int userId, String keyword, int limit) {
+        return submit(() -> scheduleService.searchSchedulesRanked(userId, keyword, limit));
+    }
+
+    public CompletableFuture<Boolean> addSchedule(Schedule schedule) {
+        return submit(() -> scheduleService.addSchedule(schedule));
+    }
+
+    public CompletableFuture<Boolean> updateSchedule(Schedule schedule) {
+        return submit(() -> scheduleService.updateSchedule(schedule));
+    }
+
+    public CompletableFuture<Boolean> deleteSchedule(int scheduleId, int userId) {
+        return submit(() -> scheduleService.deleteSchedule(scheduleId, userId));
+    }
+
+    public CompletableFuture<Boolean> cancelOccurrence(int seriesId, int userId, LocalDateTime occurrenceStart) {
+        return submit(() -> scheduleService.cancelOccurrence(seriesId, userId, occurrenceStart));
+    }
+
+    public CompletableFuture<Boolean> overrideOccurrence(Schedule override) {
+        return submit(() -> scheduleService.overrideOccurrence(override));
+    }
+
+    public CompletableFuture<BatchResult> addSchedules(List<Schedule> schedules) {
+        return submit(() -> scheduleService.addSchedules(schedules));
+    }
+
+    public CompletableFuture<BatchResult> updateSchedules(List<Schedule> schedules) {
+        return submit(() -> scheduleService.updateSchedules(schedules));
+    }
+
+    public CompletableFuture<BatchResult> deleteSchedules(List<Integer> scheduleIds, int userId) {
+        return submit(() -> scheduleService.deleteSchedules(scheduleIds, userId));
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "schedule-db-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.calendar.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.calendar.model.User;
+
+/**
+ * Facade bất đồng bộ của UserService: đăng nhập/đăng ký chạy BCrypt (tốn CPU hàng trăm ms)
+ * nên được đưa ra khỏi JavaFX Application Thread. Executor có số thread bằng số nhân CPU
+ * (ít nhất 2) để nhiều lần xác thực đồng thời chạy song song; ConcurrentLoginBenchmark
+ * trong src/test/java đo mức tăng tốc so với chạy tuần tự.
+ */
+public class AsyncUserService {
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(POOL_SIZE, new DaemonThreadFactory());
+
+    private final UserService userService;
+
+    public AsyncUserService(UserService userService) {
+        this.userService = userService;
+    }
+
+    static int getPoolSize() {
+        return POOL_SIZE;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, EXECUTOR);
+    }
+
+    /**
+     * Hiệu chỉnh work factor BCrypt trước (nếu chưa có) để lần đăng nhập đầu không phải chờ
+     */
+    public CompletableFuture<Integer> warmUp() {
+        return submit(PasswordHasher::getWorkFactor);
+    }
+
+    public CompletableFuture<User> login(String username, String password) {
+        return submit(() -> userService.login(username, password));
+    }
+
+    public CompletableFuture<Boolean> register(String username, String password, String email) {
+        return submit(() -> userService.register(username, password, email));
+    }
+
+    public CompletableFuture<Boolean> changePassword(int userId, String oldPassword, String newPassword) {
+        return submit(() -> userService.changePassword(userId, oldPassword, newPassword));
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "auth-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
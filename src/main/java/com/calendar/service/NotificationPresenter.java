@@ -0,0 +1,238 @@
+package com.calendar.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.calendar.CalendarApp;
+import com.calendar.model.Schedule;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+
+/**
+ * Hiển thị nhắc nhở dạng toast không chặn (Popup ở góc dưới bên phải cửa sổ chính).
+ *
+ * Nhắc nhở được đưa vào một hàng đợi có giới hạn từ bất kỳ thread nào; mọi nhắc nhở
+ * đến cùng lúc được gộp vào một lần Platform.runLater và một toast duy nhất. Khi hàng
+ * đợi đầy, nhắc nhở thừa chỉ được đếm và hiển thị dạng "và N lịch khác". Âm thanh được
+ * giới hạn tối đa một lần mỗi vài giây, nên một loạt 50 nhắc nhở không làm treo giao diện.
+ */
+public class NotificationPresenter {
+    private static final int MAX_QUEUED = Integer.getInteger("calendar.notify.maxQueued", 100);
+    private static final int MAX_VISIBLE = 5;
+    private static final long SOUND_INTERVAL_MILLIS = 5000;
+    private static final Duration TOAST_DURATION = Duration.seconds(10);
+    private static final double TOAST_WIDTH = 320;
+    private static final double TOAST_MARGIN = 20;
+
+    private final BlockingQueue<Schedule> pending = new ArrayBlockingQueue<>(MAX_QUEUED);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicInteger overflowCount = new AtomicInteger();
+
+    // Các trường dưới đây chỉ dùng trên JavaFX Application Thread
+    private final List<Schedule> visibleSchedules = new ArrayList<>();
+    private int hiddenCount;
+    private long lastSoundMillis;
+    private Popup toast;
+    private Label headerLabel;
+    private VBox itemsBox;
+    private PauseTransition hideTimer;
+
+    /**
+     * Đưa một nhắc nhở vào hàng đợi hiển thị; an toàn khi gọi từ mọi thread và không chặn
+     */
+    public void enqueue(Schedule schedule) {
+        if (!pending.offer(schedule)) {
+            overflowCount.incrementAndGet();
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /**
+     * Đóng toast đang hiển thị (gọi khi đăng xuất)
+     */
+    public void dismiss() {
+        Platform.runLater(() -> {
+            pending.clear();
+            overflowCount.set(0);
+            hideToast();
+        });
+    }
+
+    /**
+     * Lấy toàn bộ nhắc nhở đang chờ và cập nhật toast một lần
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        List<Schedule> batch = new ArrayList<>();
+        pending.drainTo(batch);
+        int overflow = overflowCount.getAndSet(0);
+        if (batch.isEmpty() && overflow == 0) {
+            return;
+        }
+
+        for (Schedule schedule : batch) {
+            if (visibleSchedules.size() < MAX_VISIBLE) {
+                visibleSchedules.add(schedule);
+            } else {
+                hiddenCount++;
+            }
+        }
+        hiddenCount += overflow;
+
+        showToast();
+        playSoundRateLimited();
+    }
+
+    private void showToast() {
+        Stage owner = CalendarApp.getPrimaryStage();
+        if (owner == null || !owner.isShowing()) {
+            System.out.println("Nhắc nhở: " + (visibleSchedules.size() + hiddenCount)
+                + " lịch (cửa sổ chính không hiển thị)");
+            // Không có toast để đóng: bỏ danh sách ngay, không dồn sang lần sau
+            visibleSchedules.clear();
+            hiddenCount = 0;
+            return;
+        }
+        if (toast == null) {
+            createToast();
+        }
+
+        int total = visibleSchedules.size() + hiddenCount;
+        headerLabel.setText(total == 1 ? "Nhắc nhở lịch" : "Nhắc nhở " + total + " lịch");
+        itemsBox.getChildren().clear();
+        for (Schedule schedule : visibleSchedules) {
+            Label item = new Label(formatStart(schedule.getStartTime()) + "  " + schedule.getTitle());
+            item.getStyleClass().add("toast-item");
+            item.setMaxWidth(TOAST_WIDTH - 24);
+            item.setTooltip(new Tooltip(buildDetails(schedule)));
+            itemsBox.getChildren().add(item);
+        }
+        if (hiddenCount > 0) {
+            Label more = new Label("và " + hiddenCount + " lịch khác");
+            more.getStyleClass().add("toast-more");
+            itemsBox.getChildren().add(more);
+        }
+
+        if (!toast.isShowing()) {
+            toast.show(owner, owner.getX() + owner.getWidth() - TOAST_WIDTH - TOAST_MARGIN, owner.getY());
+        }
+        // Chiều cao chỉ biết được sau khi toast đã hiển thị
+        toast.setY(owner.getY() + owner.getHeight() - toast.getHeight() - TOAST_MARGIN);
+        hideTimer.playFromStart();
+    }
+
+    private void createToast() {
+        headerLabel = new Label();
+        headerLabel.getStyleClass().add("toast-title");
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        Button closeButton = new Button("✕");
+        closeButton.getStyleClass().add("toast-close");
+        closeButton.setOnAction(e -> hideToast());
+
+        HBox header = new HBox(8, headerLabel, spacer, closeButton);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        itemsBox = new VBox(4);
+        VBox root = new VBox(8, header, itemsBox);
+        root.getStyleClass().add("toast");
+        root.setPrefWidth(TOAST_WIDTH);
+
+        toast = new Popup();
+        toast.getContent().add(root);
+        toast.getScene().getStylesheets().add(CalendarApp.class.getResource("/css/style.css").toExternalForm());
+
+        hideTimer = new PauseTransition(TOAST_DURATION);
+        hideTimer.setOnFinished(e -> hideToast());
+    }
+
+    private void hideToast() {
+        visibleSchedules.clear();
+        hiddenCount = 0;
+        if (hideTimer != null) {
+            hideTimer.stop();
+        }
+        if (toast != null) {
+            toast.hide();
+        }
+    }
+
+    /**
+     * Phát âm thanh thông báo, tối đa một lần mỗi SOUND_INTERVAL_MILLIS
+     */
+    private void playSoundRateLimited() {
+        long now = System.currentTimeMillis();
+        if (now - lastSoundMillis < SOUND_INTERVAL_MILLIS) {
+            return;
+        }
+        lastSoundMillis = now;
+        try {
+            // Phát âm thanh mặc định của hệ thống
+            java.awt.Toolkit.getDefaultToolkit().beep();
+        } catch (Exception e) {
+            // Bỏ qua nếu không phát được âm thanh
+        }
+    }
+
+    private static String buildDetails(Schedule schedule) {
+        StringBuilder content = new StringBuilder();
+        content.append("Thời gian: ")
+               .append(formatDateTime(schedule.getStartTime()));
+
+        if (schedule.getDescription() != null && !schedule.getDescription().isEmpty()) {
+            content.append("\nMô tả: ")
+                   .append(schedule.getDescription());
+        }
+
+        if (schedule.getNote() != null && !schedule.getNote().isEmpty()) {
+            content.append("\nGhi chú: ")
+                   .append(schedule.getNote());
+        }
+        return content.toString();
+    }
+
+    /**
+     * Giờ bắt đầu trong toast: chỉ HH:mm nếu là hôm nay, kèm ngày nếu khác (ví dụ nhắc nhở
+     * bị lỡ từ hôm qua được giao bù khi đăng nhập)
+     */
+    private static String formatStart(LocalDateTime dateTime) {
+        if (dateTime.toLocalDate().equals(LocalDate.now())) {
+            return String.format("%02d:%02d", dateTime.getHour(), dateTime.getMinute());
+        }
+        return formatDateTime(dateTime);
+    }
+
+    /**
+     * Format DateTime để hiển thị
+     */
+    private static String formatDateTime(LocalDateTime dateTime) {
+        return String.format("%02d/%02d/%d %02d:%02d",
+            dateTime.getDayOfMonth(),
+            dateTime.getMonthValue(),
+            dateTime.getYear(),
+            dateTime.getHour(),
+            dateTime.getMinute()
+        );
+    }
+}
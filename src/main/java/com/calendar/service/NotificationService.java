@@ -1,20 +1,36 @@
 package com.calendar.service;
 
-import java.time.Duration;
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import com.calendar.model.Schedule;
-
-import javafx.application.Platform;
-import javafx.scene.control.Alert;
+import com.calendar.service.sink.DesktopReminderSink;
+import com.calendar.service.sink.LogFileReminderSink;
+import com.calendar.service.sink.ReminderDispatcher;
+import com.calendar.service.sink.ReminderSink;
+import com.calendar.service.sink.WebhookReminderSink;
+
+/**
+ * Phát nhắc nhở cho user đang đăng nhập. Việc hẹn giờ do ReminderEngine dùng chung
+ * đảm nhận; dịch vụ này đăng ký/hủy đăng ký user với bộ máy và chuyển nhắc nhở cho
+ * ReminderDispatcher, gồm các sink: toast trên desktop, file log
+ * (calendar.reminder.logFile, để trống để tắt) và webhook (calendar.reminder.webhookUrl).
+ */
 @SuppressWarnings("unused")
 public class NotificationService {
     private final ScheduleService scheduleService;
-    private Timer timer;
+    private static final String LOG_FILE = System.getProperty("calendar.reminder.logFile", "reminders.log");
+    private static final String WEBHOOK_URL = System.getProperty("calendar.reminder.webhookUrl", "");
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 500;
+
+    private final NotificationPresenter presenter = new NotificationPresenter();
+    private final ReminderEngine.ReminderListener reminderListener = this::showNotification;
+    private volatile ReminderDispatcher dispatcher;
     private int currentUserId;
+    private boolean running;
 
     public NotificationService(ScheduleService scheduleService) {
         this.scheduleService = scheduleService;
@@ -23,22 +39,12 @@ public class NotificationService {
     /**
      * Bắt đầu dịch vụ nhắc nhở
      */
-    public void startNotificationService(int userId) {
+    public synchronized void startNotificationService(int userId) {
+        stopNotificationService();
         this.currentUserId = userId;
-        
-        if (timer != null) {
-            timer.cancel();
-        }
-
-        timer = new Timer(true); // daemon thread
-        
-        // Kiểm tra mỗi 30 giây
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                checkAndNotify();
-            }
-        }, 0, 30000); // 0ms delay, 30s period
+        dispatcher = new ReminderDispatcher(createSinks());
+        ReminderEngine.getInstance().subscribe(userId, reminderListener);
+        running = true;
 
         System.out.println("Dịch vụ nhắc nhở đã được khởi động cho user ID: " + userId);
     }
@@ -46,127 +52,56 @@ public class NotificationService {
     /**
      * Dừng dịch vụ nhắc nhở
      */
-    public void stopNotificationService() {
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
-            System.out.println("Dịch vụ nhắc nhở đã dừng");
+    public synchronized void stopNotificationService() {
+        if (running) {
+            ReminderEngine.getInstance().unsubscribe(currentUserId, reminderListener);
+            running = false;
+            // Không chờ worker (thường được gọi từ FX thread khi đăng xuất)
+            ReminderDispatcher stopped = dispatcher;
+            dispatcher = null;
+            stopped.shutdown(SHUTDOWN_TIMEOUT_MILLIS).thenRun(() -> {
+                for (ReminderDispatcher.SinkStats stats : stopped.getStats()) {
+                    System.out.println("  Sink " + stats);
+                }
+                System.out.println("Dịch vụ nhắc nhở đã dừng");
+            });
         }
     }
 
-    /**
-     * Kiểm tra và gửi thông báo
-     */
-    @SuppressWarnings("CallToPrintStackTrace")
-    private void checkAndNotify() {
-        try {
-            LocalDateTime now = LocalDateTime.now();
-            List<Schedule> upcomingSchedules = scheduleService.getUpcomingReminders(currentUserId);
-
-            for (Schedule schedule : upcomingSchedules) {
-                LocalDateTime reminderTime = schedule.getStartTime()
-                    .minusMinutes(schedule.getReminderMinutes());
-
-                // Kiểm tra nếu thời gian nhắc nhở đã đến
-                Duration duration = Duration.between(now, reminderTime);
-                long minutesUntilReminder = duration.toMinutes();
-
-                // Nếu còn 0-1 phút nữa là đến thời gian nhắc nhở
-                if (minutesUntilReminder >= 0 && minutesUntilReminder <= 1) {
-                    showNotification(schedule);
-                }
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
+    private List<ReminderSink> createSinks() {
+        List<ReminderSink> sinks = new ArrayList<>();
+        sinks.add(new DesktopReminderSink(presenter));
+        if (!LOG_FILE.isBlank()) {
+            sinks.add(new LogFileReminderSink(Path.of(LOG_FILE)));
         }
+        if (!WEBHOOK_URL.isBlank()) {
+            sinks.add(new WebhookReminderSink(URI.create(WEBHOOK_URL)));
+        }
+        return sinks;
     }
 
     /**
-     * Hiển thị thông báo
+     * Chuyển nhắc nhở cho các sink; chạy trên thread của bộ máy nên chỉ đưa vào hàng đợi
      */
     private void showNotification(Schedule schedule) {
-        Platform.runLater(() -> {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Nhắc nhở lịch");
-            alert.setHeaderText(schedule.getTitle());
-            
-            StringBuilder content = new StringBuilder();
-            content.append("Thời gian: ")
-                   .append(formatDateTime(schedule.getStartTime()))
-                   .append("\n\n");
-            
-            if (schedule.getDescription() != null && !schedule.getDescription().isEmpty()) {
-                content.append("Mô tả: ")
-                       .append(schedule.getDescription())
-                       .append("\n");
-            }
-            
-            if (schedule.getNote() != null && !schedule.getNote().isEmpty()) {
-                content.append("\nGhi chú: ")
-                       .append(schedule.getNote());
-            }
-
-            alert.setContentText(content.toString());
-            
-            // Phát âm thanh (nếu muốn)
-            playSound();
-            
-            alert.showAndWait();
-        });
-    }
-
-    /**
-     * Phát âm thanh thông báo
-     */
-    private void playSound() {
-        try {
-            // Phát âm thanh mặc định của hệ thống
-            java.awt.Toolkit.getDefaultToolkit().beep();
-        } catch (Exception e) {
-            // Bỏ qua nếu không phát được âm thanh
+        ReminderDispatcher current = dispatcher;
+        if (current != null) {
+            current.dispatch(schedule);
         }
     }
 
     /**
-     * Format DateTime để hiển thị
-     */
-    private String formatDateTime(LocalDateTime dateTime) {
-        return String.format("%02d/%02d/%d %02d:%02d",
-            dateTime.getDayOfMonth(),
-            dateTime.getMonthValue(),
-            dateTime.getYear(),
-            dateTime.getHour(),
-            dateTime.getMinute()
-        );
-    }
-
-    /**
-     * Hiển thị thông báo thủ công cho một lịch cụ thể
+     * Hiển thị thông báo thủ công cho một lịch cụ thể (chỉ trên desktop)
      */
     public void showManualNotification(Schedule schedule) {
-        showNotification(schedule);
+        presenter.enqueue(schedule);
     }
 
     /**
      * Kiểm tra xem có lịch nào cần nhắc nhở trong khoảng thời gian sắp tới không
+     * (đếm trên hàng đợi trong bộ nhớ, không truy vấn database)
      */
     public int getUpcomingRemindersCount(int minutes) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime checkUntil = now.plusMinutes(minutes);
-        
-        List<Schedule> schedules = scheduleService.getUpcomingReminders(currentUserId);
-        
-        int count = 0;
-        for (Schedule schedule : schedules) {
-            LocalDateTime reminderTime = schedule.getStartTime()
-                .minusMinutes(schedule.getReminderMinutes());
-            
-            if (reminderTime.isAfter(now) && reminderTime.isBefore(checkUntil)) {
-                count++;
-            }
-        }
-        
-        return count;
+        return ReminderEngine.getInstance().countPending(currentUserId, LocalDateTime.now().plusMinutes(minutes));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package com.calendar.service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Băm và kiểm tra mật khẩu bằng BCrypt với work factor được hiệu chỉnh theo máy.
+ *
+ * Lần đầu chạy, thời gian băm ở cost tối thiểu được đo rồi chọn cost lớn nhất mà thời
+ * gian ước tính (gấp đôi mỗi bậc) không vượt quá mục tiêu calendar.auth.bcryptTargetMs
+ * (mặc định 250ms). Kết quả được lưu vào app_settings để các lần sau không phải đo lại;
+ * đổi mục tiêu sẽ hiệu chỉnh lại. Hash có cost khác cost hiện tại được nâng cấp khi
+ * người dùng đăng nhập thành công (xem needsRehash).
+ */
+public final class PasswordHasher {
+    private static final long TARGET_MILLIS = Long.getLong("calendar.auth.bcryptTargetMs", 250);
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+    private static final int CALIBRATION_ROUNDS = 3;
+    private static final String COST_KEY = "bcrypt.cost";
+    private static final String TARGET_KEY = "bcrypt.targetMs";
+
+    private static volatile int workFactor; // 0: chưa hiệu chỉnh
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Work factor hiện tại; hiệu chỉnh (hoặc đọc từ app_settings) ở lần gọi đầu tiên
+     */
+    public static int getWorkFactor() {
+        int cost = workFactor;
+        if (cost == 0) {
+            synchronized (PasswordHasher.class) {
+                cost = workFactor;
+                if (cost == 0) {
+                    cost = loadOrCalibrate();
+                    workFactor = cost;
+                }
+            }
+        }
+        return cost;
+    }
+
+    public static String hash(String password) {
+        return BCrypt.hashpw(password, BCrypt.gensalt(getWorkFactor()));
+    }
+
+    public static boolean verify(String password, String hash) {
+        try {
+            return BCrypt.checkpw(password, hash);
+        } catch (IllegalArgumentException e) {
+            // Hash hỏng hoặc không phải BCrypt
+            return false;
+        }
+    }
+
+    /**
+     * True nếu hash được tạo với cost khác cost hiện tại và nên băm lại
+     */
+    public static boolean needsRehash(String hash) {
+        return costOf(hash) != getWorkFactor();
+    }
+
+    /**
+     * Đọc cost từ hash dạng $2a$NN$..., trả về -1 nếu không đúng định dạng
+     */
+    static int costOf(String hash) {
+        if (hash == null || !hash.startsWith("$2")) {
+            return -1;
+        }
+        int start = hash.indexOf('$', 1) + 1;
+        if (start == 0 || hash.length() < start + 3 || hash.charAt(start + 2) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(start, start + 2));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int loadOrCalibrate() {
+        SettingsService settings = new SettingsService();
+        String storedCost = settings.getSetting(COST_KEY);
+        String storedTarget = settings.getSetting(TARGET_KEY);
+        if (storedCost != null && String.valueOf(TARGET_MILLIS).equals(storedTarget)) {
+            try {
+                return Math.max(MIN_COST, Math.min(MAX_COST, Integer.parseInt(storedCost)));
+            } catch (NumberFormatException e) {
+                // Giá trị hỏng: hiệu chỉnh lại
+            }
+        }
+
+        int cost = calibrate();
+        settings.putSetting(COST_KEY, String.valueOf(cost));
+        settings.putSetting(TARGET_KEY, String.valueOf(TARGET_MILLIS));
+        return cost;
+    }
+
+    /**
+     * Đo thời gian băm ở MIN_COST (lấy lần nhanh nhất sau một lần chạy khởi động)
+     * rồi ngoại suy: mỗi bậc cost tăng gấp đôi thời gian
+     */
+    private static int calibrate() {
+        String salt = BCrypt.gensalt(MIN_COST);
+        BCrypt.hashpw("calibration", salt);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double millis = best / 1_000_000.0;
+
+        int cost = MIN_COST;
+        while (cost < MAX_COST && millis * 2 <= TARGET_MILLIS) {
+            cost++;
+            millis *= 2;
+        }
+        System.out.println("Hiệu chỉnh BCrypt: cost " + cost + " (~" + Math.round(millis) + "ms, mục tiêu "
+            + TARGET_MILLIS + "ms)");
+        return cost;
+    }
+}
@@ -0,0 +1,71 @@
+package com.calendar.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.calendar.database.DatabaseManager;
+import com.calendar.model.Schedule;
+
+/**
+ * Ghi nhật ký phát nhắc nhở (bảng reminder_deliveries, chỉ thêm).
+ *
+ * Nhắc nhở phải được "nhận" (claim) trước khi hiển thị: INSERT OR IGNORE theo khóa
+ * (schedule_id, reminder_at) chỉ thành công một lần, nên mỗi lần nhắc được hiển thị
+ * nhiều nhất một lần dù ứng dụng khởi động lại hay hai instance cùng chạy.
+ */
+public class ReminderDeliveryService {
+    private static final String CLAIM_SQL = """
+        INSERT OR IGNORE INTO reminder_deliveries 
+        (schedule_id, reminder_at, user_id, delivered_at) 
+        VALUES (?, ?, ?, ?)
+    """;
+
+    private final DatabaseManager dbManager;
+
+    public ReminderDeliveryService() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Ghi nhận cả lô nhắc nhở trong một transaction và trả về những nhắc nhở chưa
+     * từng được phát (được phép hiển thị). Lỗi database trả về danh sách rỗng:
+     * thà bỏ lỡ một nhắc nhở còn hơn phát trùng.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<Schedule> claimDeliveries(List<Schedule> schedules) {
+        if (schedules.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        long now = DatabaseManager.toEpochSecond(LocalDateTime.now());
+        try {
+            return dbManager.executeInTransaction(conn -> {
+                List<Schedule> claimed = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(CLAIM_SQL)) {
+                    for (Schedule schedule : schedules) {
+                        pstmt.setInt(1, schedule.getId());
+                        pstmt.setLong(2, DatabaseManager.toEpochSecond(schedule.getReminderTime()));
+                        pstmt.setInt(3, schedule.getUserId());
+                        pstmt.setLong(4, now);
+                        pstmt.addBatch();
+                    }
+
+                    int[] counts = pstmt.executeBatch();
+                    for (int i = 0; i < schedules.size(); i++) {
+                        if (i < counts.length && counts[i] > 0) {
+                            claimed.add(schedules.get(i));
+                        }
+                    }
+                }
+                return claimed;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,600 @@
+package com.calendar.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.calendar.model.Schedule;
+
+/**
+ * Bộ máy nhắc nhở dùng chung cho mọi user: một heap duy nhất sắp theo thời điểm nhắc
+ * và một thread phát nhắc nhở, thay vì mỗi phiên đăng nhập một Timer riêng.
+ *
+ * - User nhận nhắc nhở qua subscribe/unsubscribe; chỉ nhắc nhở của user đang đăng ký
+ *   được giữ trong bộ nhớ.
+ * - Chỉ nạp nhắc nhở trong cửa sổ lookahead (mặc định 24 giờ). Mỗi lần nạp lại chỉ đọc
+ *   phần cửa sổ mới (loadedUntil, now + lookahead] của mọi user bằng một truy vấn.
+ * - Thêm/sửa/xóa lịch được cập nhật trực tiếp qua ScheduleChangeListener.
+ * - Mỗi chuỗi lặp chỉ có lần nhắc sắp tới nhất trong heap; khi lần đó được phát, lần lặp
+ *   kế tiếp được tính từ quy tắc lặp và đưa vào heap, nên chuỗi không kết thúc cũng chỉ
+ *   chiếm một entry.
+ * - Số nhắc nhở trong bộ nhớ bị chặn bởi calendar.reminder.maxPending; khi đầy, cửa sổ
+ *   được thu hẹp lại để lần nạp sau đọc tiếp phần bị bỏ.
+ * - Mỗi nhắc nhở được ghi vào nhật ký reminder_deliveries trước khi phát (nhiều nhất
+ *   một lần). Khi user đăng ký, các nhắc nhở đã đến hạn trong cửa sổ catch-up mà chưa
+ *   có trong nhật ký (ứng dụng đang đóng) được phát bù thành một lô.
+ * - Thread phát chỉ lấy nhắc nhở đến hạn khỏi heap; ghi nhật ký (có thể phải chờ write
+ *   lock) và gọi listener chạy trên thread nạp.
+ *
+ * Cấu hình qua system property: calendar.reminder.lookaheadMinutes,
+ * calendar.reminder.refillMinutes, calendar.reminder.maxPending,
+ * calendar.reminder.catchupMinutes.
+ */
+public class ReminderEngine implements ScheduleChangeListener {
+    private static final long LOOKAHEAD_MILLIS = TimeUnit.MINUTES.toMillis(
+        Long.getLong("calendar.reminder.lookaheadMinutes", 24 * 60));
+    private static final long REFILL_INTERVAL_MINUTES = Long.getLong("calendar.reminder.refillMinutes", 60);
+    private static final int MAX_PENDING = Integer.getInteger("calendar.reminder.maxPending", 1_000_000);
+    private static final long CATCHUP_MINUTES = Long.getLong("calendar.reminder.catchupMinutes", 24 * 60);
+    // Thức dậy ít nhất mỗi phút để theo kịp khi đồng hồ hệ thống bị chỉnh
+    private static final long MAX_WAIT_MILLIS = 60_000;
+    private static final int MIN_COMPACT_SIZE = 1024;
+
+    private static volatile ReminderEngine instance;
+
+    /**
+     * Nhận nhắc nhở đến hạn; được gọi trên thread của bộ máy nên phải xử lý nhanh
+     */
+    @FunctionalInterface
+    public interface ReminderListener {
+        void onReminder(Schedule schedule);
+    }
+
+    /**
+     * Một nhắc nhở trong heap. Khi lịch bị sửa/xóa, entry cũ không bị gỡ khỏi heap
+     * ngay mà chỉ bị bỏ khỏi entriesById (xóa lười), thread phát sẽ bỏ qua nó.
+     */
+    private static final class Entry {
+        final Schedule schedule;
+        final long fireAtMillis;
+
+        Entry(Schedule schedule, long fireAtMillis) {
+            this.schedule = schedule;
+            this.fireAtMillis = fireAtMillis;
+        }
+    }
+
+    private final ScheduleService scheduleService;
+    private final ReminderDeliveryService deliveryService;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Các trường dưới đây chỉ được truy cập khi giữ lock
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(e -> e.fireAtMillis));
+    private final Map<Integer, Entry> entriesById = new HashMap<>();
+    private final Map<Integer, Set<Integer>> idsByUser = new HashMap<>();
+    private final Map<Integer, List<ReminderListener>> subscribers = new HashMap<>();
+    private long loadedUntil;
+    private int staleEntries;
+    private boolean capacityWarned;
+
+    private final ScheduledExecutorService loader;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong maxLatenessMillis = new AtomicLong();
+
+    private ReminderEngine() {
+        this.scheduleService = new ScheduleService();
+        this.deliveryService = new ReminderDeliveryService();
+        this.loadedUntil = nowMillis() + LOOKAHEAD_MILLIS;
+
+        // Truy vấn và ghi nhật ký phát chạy trên thread riêng để không giữ lock khi chờ I/O
+        // và không làm trễ thread phát
+        loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.scheduleWithFixedDelay(this::refill, REFILL_INTERVAL_MINUTES, REFILL_INTERVAL_MINUTES, TimeUnit.MINUTES);
+
+        dispatcher = new Thread(this::dispatchLoop, "reminder-engine");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        ScheduleService.addChangeListener(this);
+    }
+
+    public static ReminderEngine getInstance() {
+        ReminderEngine result = instance;
+        if (result == null) {
+            synchronized (ReminderEngine.class) {
+                result = instance;
+                if (result == null) {
+                    result = new ReminderEngine();
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Dừng bộ máy nếu đang chạy (gọi khi thoát ứng dụng)
+     */
+    public static void shutdown() {
+        synchronized (ReminderEngine.class) {
+            ReminderEngine engine = instance;
+            if (engine == null) {
+                return;
+            }
+            instance = null;
+            ScheduleService.removeChangeListener(engine);
+            engine.loader.shutdownNow();
+            engine.lock.lock();
+            try {
+                engine.running = false;
+                engine.changed.signalAll();
+            } finally {
+                engine.lock.unlock();
+            }
+            System.out.println("Bộ máy nhắc nhở đã dừng (đã phát " + engine.getFiredCount() + " nhắc nhở)");
+        }
+    }
+
+    /**
+     * Đăng ký nhận nhắc nhở của một user; nhắc nhở của user được nạp nền ở lần đăng ký đầu tiên
+     */
+    public void subscribe(int userId, ReminderListener listener) {
+        boolean first;
+        lock.lock();
+        try {
+            List<ReminderListener> listeners = subscribers.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+            first = listeners.isEmpty();
+            listeners.add(listener);
+        } finally {
+            lock.unlock();
+        }
+
+        if (first) {
+            loader.execute(() -> loadUser(userId));
+        }
+    }
+
+    /**
+     * Hủy đăng ký; khi user không còn ai đăng ký, nhắc nhở của user được gỡ khỏi bộ nhớ
+     */
+    public void unsubscribe(int userId, ReminderListener listener) {
+        lock.lock();
+        try {
+            List<ReminderListener> listeners = subscribers.get(userId);
+            if (listeners == null || !listeners.remove(listener) || !listeners.isEmpty()) {
+                return;
+            }
+            subscribers.remove(userId);
+
+            Set<Integer> ids = idsByUser.remove(userId);
+            if (ids != null) {
+                for (int id : ids) {
+                    entriesById.remove(id);
+                    staleEntries++;
+                }
+                compactIfNeeded();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onScheduleAdded(Schedule schedule) {
+        onScheduleUpdated(schedule);
+    }
+
+    @Override
+    public void onScheduleUpdated(Schedule schedule) {
+        lock.lock();
+        try {
+            if (subscribers.containsKey(schedule.getUserId())) {
+                putEntry(schedule);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onScheduleDeleted(int userId, int scheduleId) {
+        lock.lock();
+        try {
+            removeEntry(scheduleId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Số nhắc nhở của user sẽ phát trước thời điểm "until"
+     */
+    public int countPending(int userId, LocalDateTime until) {
+        long now = nowMillis();
+        long untilMillis = toMillis(until);
+        lock.lock();
+        try {
+            int count = 0;
+            for (int id : idsByUser.getOrDefault(userId, Set.of())) {
+                Entry entry = entriesById.get(id);
+                if (entry.fireAtMillis <= now || entry.fireAtMillis >= untilMillis) {
+                    continue;
+                }
+                Schedule schedule = entry.schedule;
+                if (schedule.isOccurrence()) {
+                    // Chỉ lần lặp sớm nhất nằm trong heap, các lần sau được đếm từ quy tắc lặp
+                    count += schedule.getRecurrence().startsBetween(schedule.getStartTime(), schedule.getStartTime(),
+                        until.plusMinutes(schedule.getReminderMinutes()), Integer.MAX_VALUE).size();
+                } else {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    /**
+     * Độ trễ lớn nhất (ms) giữa thời điểm nhắc và lúc phát, đo từ khi khởi động
+     */
+    public long getMaxLatenessMillis() {
+        return maxLatenessMillis.get();
+    }
+
+    /**
+     * Nạp nhắc nhở trong cửa sổ hiện tại của một user vừa đăng ký,
+     * rồi phát bù các nhắc nhở đã lỡ trong cửa sổ catch-up
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    private void loadUser(int userId) {
+        try {
+            long until;
+            lock.lock();
+            try {
+                until = loadedUntil;
+            } finally {
+                lock.unlock();
+            }
+
+            LocalDateTime now = fromMillis(nowMillis());
+            List<Schedule> schedules = scheduleService.getRemindersBetween(userId, now, fromMillis(until));
+
+            lock.lock();
+            try {
+                if (!subscribers.containsKey(userId)) {
+                    return;
+                }
+                for (Schedule schedule : schedules) {
+                    putEntry(schedule);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            List<Schedule> missed = scheduleService.getMissedReminders(
+                userId, now.minusMinutes(CATCHUP_MINUTES), now);
+            if (!missed.isEmpty()) {
+                int delivered = claimAndNotify(missed);
+                System.out.println("Đã phát bù " + delivered + " nhắc nhở bị lỡ cho user ID: " + userId);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Mở rộng cửa sổ đến now + lookahead, chỉ đọc phần mới của mọi user bằng một truy vấn
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    private void refill() {
+        try {
+            long from;
+            long until = nowMillis() + LOOKAHEAD_MILLIS;
+            boolean hasSubscribers;
+            lock.lock();
+            try {
+                from = loadedUntil;
+                hasSubscribers = !subscribers.isEmpty();
+                if (!hasSubscribers) {
+                    loadedUntil = Math.max(loadedUntil, until);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!hasSubscribers || from >= until) {
+                return;
+            }
+
+            List<Schedule> schedules = scheduleService.getAllRemindersBetween(fromMillis(from), fromMillis(until));
+
+            lock.lock();
+            try {
+                loadedUntil = Math.max(loadedUntil, until);
+                for (Schedule schedule : schedules) {
+                    if (subscribers.containsKey(schedule.getUserId())) {
+                        putEntry(schedule);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Thêm (hoặc thay) nhắc nhở của một lịch, một chuỗi lặp hoặc một lần lặp. Phải giữ lock.
+     */
+    private void putEntry(Schedule schedule) {
+        if (schedule.isOccurrence()) {
+            Entry existing = entriesById.get(schedule.getId());
+            if (existing != null && existing.schedule.isOccurrence()
+                    && existing.fireAtMillis <= toMillis(schedule.getReminderTime())) {
+                // Đã có lần lặp sớm hơn của chuỗi; lần này được đưa vào khi lần trước được phát
+                return;
+            }
+        }
+        removeEntry(schedule.getId());
+        if (!schedule.isReminder() || schedule.getStartTime() == null) {
+            return;
+        }
+        if (schedule.isSeries()) {
+            // Chuỗi vừa được thêm/sửa: tính lại lần nhắc sắp tới nhất
+            LocalDateTime start = schedule.getRecurrence().nextStart(schedule.getStartTime(),
+                fromMillis(nowMillis()).plusMinutes(schedule.getReminderMinutes()));
+            if (start == null) {
+                return;
+            }
+            schedule = schedule.occurrenceAt(start);
+        }
+
+        long fireAt = toMillis(schedule.getReminderTime());
+        if (fireAt <= nowMillis() || fireAt > loadedUntil) {
+            // Đã qua, hoặc nằm ngoài cửa sổ: lần nạp sau sẽ đọc lại từ database
+            return;
+        }
+        addEntry(schedule, fireAt);
+    }
+
+    /**
+     * Đưa lần lặp kế tiếp của chuỗi vào heap sau khi lần lặp "fired" đến hạn, nếu nằm trong
+     * cửa sổ đã nạp (kể cả khi đã đến hạn, ví dụ sau khi máy ngủ). Phải giữ lock.
+     */
+    private void putNextOccurrence(Schedule fired) {
+        LocalDateTime start = fired.getRecurrence().nextStart(fired.getStartTime(), fired.getStartTime());
+        if (start == null || entriesById.containsKey(fired.getId())) {
+            return;
+        }
+        Schedule next = fired.occurrenceAt(start);
+        long fireAt = toMillis(next.getReminderTime());
+        if (fireAt <= loadedUntil) {
+            addEntry(next, fireAt);
+        }
+    }
+
+    // Phải giữ lock
+    private void addEntry(Schedule schedule, long fireAt) {
+        if (entriesById.size() >= MAX_PENDING) {
+            loadedUntil = Math.min(loadedUntil, fireAt - 1);
+            if (!capacityWarned) {
+                capacityWarned = true;
+                System.err.println("Bộ máy nhắc nhở đã đầy (" + MAX_PENDING + "), thu hẹp cửa sổ nạp");
+            }
+            return;
+        }
+
+        Entry entry = new Entry(schedule, fireAt);
+        queue.add(entry);
+        entriesById.put(schedule.getId(), entry);
+        idsByUser.computeIfAbsent(schedule.getUserId(), k -> new HashSet<>()).add(schedule.getId());
+        changed.signal();
+    }
+
+    /**
+     * Gỡ nhắc nhở của một lịch (xóa lười khỏi heap). Phải giữ lock.
+     */
+    private void removeEntry(int scheduleId) {
+        Entry entry = entriesById.remove(scheduleId);
+        if (entry != null) {
+            forgetUserId(entry);
+            staleEntries++;
+            compactIfNeeded();
+        }
+    }
+
+    private void forgetUserId(Entry entry) {
+        Set<Integer> ids = idsByUser.get(entry.schedule.getUserId());
+        if (ids != null) {
+            ids.remove(entry.schedule.getId());
+            if (ids.isEmpty()) {
+                idsByUser.remove(entry.schedule.getUserId());
+            }
+        }
+    }
+
+    /**
+     * Dựng lại heap khi số entry đã bị gỡ vượt quá số entry còn hiệu lực
+     */
+    private void compactIfNeeded() {
+        if (staleEntries > MIN_COMPACT_SIZE && staleEntries > entriesById.size()) {
+            queue.clear();
+            queue.addAll(entriesById.values());
+            staleEntries = 0;
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<Entry> due = new ArrayList<>();
+            lock.lock();
+            try {
+                waitForDueEntries();
+                long now = nowMillis();
+                Entry head;
+                while ((head = queue.peek()) != null && head.fireAtMillis <= now) {
+                    queue.poll();
+                    if (entriesById.get(head.schedule.getId()) != head) {
+                        staleEntries--;
+                        continue;
+                    }
+                    entriesById.remove(head.schedule.getId());
+                    forgetUserId(head);
+                    due.add(head);
+                    if (head.schedule.isOccurrence()) {
+                        putNextOccurrence(head.schedule);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            deliver(due);
+        }
+    }
+
+    /**
+     * Chờ đến khi entry đầu heap đến hạn (hoặc heap thay đổi). Phải giữ lock.
+     */
+    private void waitForDueEntries() throws InterruptedException {
+        while (running) {
+            Entry head = queue.peek();
+            if (head == null) {
+                changed.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                continue;
+            }
+            if (entriesById.get(head.schedule.getId()) != head) {
+                queue.poll();
+                staleEntries--;
+                continue;
+            }
+
+            long waitMillis = head.fireAtMillis - nowMillis();
+            if (waitMillis <= 0) {
+                return;
+            }
+            changed.await(Math.min(waitMillis, MAX_WAIT_MILLIS), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Chuyển các nhắc nhở đến hạn cho thread nạp để ghi nhật ký và phát: việc ghi
+     * database có thể phải chờ write lock (nhập hàng loạt, transaction dài), không được
+     * làm trễ thread phát các nhắc nhở sau
+     */
+    private void deliver(List<Entry> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+
+        List<Schedule> schedules = new ArrayList<>(due.size());
+        long now = nowMillis();
+        for (Entry entry : due) {
+            schedules.add(entry.schedule);
+            firedCount.incrementAndGet();
+            maxLatenessMillis.accumulateAndGet(now - entry.fireAtMillis, Math::max);
+        }
+        try {
+            loader.execute(() -> claimAndNotify(schedules));
+        } catch (RejectedExecutionException e) {
+            // Bộ máy đang dừng
+        }
+    }
+
+    /**
+     * Ghi nhật ký rồi phát các nhắc nhở của user còn đăng ký; nhắc nhở đã có trong
+     * nhật ký (đã phát trước đó) bị bỏ qua. Trả về số nhắc nhở đã phát.
+     * Chạy trên thread nạp (reminder-loader), không chạy trên thread phát.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    private int claimAndNotify(List<Schedule> schedules) {
+        List<Schedule> subscribed = new ArrayList<>(schedules.size());
+        lock.lock();
+        try {
+            for (Schedule schedule : schedules) {
+                if (subscribers.containsKey(schedule.getUserId())) {
+                    subscribed.add(schedule);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<Schedule> claimed = deliveryService.claimDeliveries(subscribed);
+        for (Schedule schedule : claimed) {
+            List<ReminderListener> listeners;
+            lock.lock();
+            try {
+                listeners = subscribers.get(schedule.getUserId());
+            } finally {
+                lock.unlock();
+            }
+
+            if (listeners != null) {
+                for (ReminderListener listener : listeners) {
+                    try {
+                        listener.onReminder(schedule);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Thời điểm theo cùng quy ước với cột epoch (giờ địa phương coi như UTC), tính bằng ms
+     */
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), 0, ZoneOffset.UTC);
+    }
+
+    private static long nowMillis() {
+        return toMillis(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,16 @@
+package com.calendar.service;
+
+import com.calendar.model.Schedule;
+
+/**
+ * Nhận thông báo sau khi lịch được ghi thành công vào database.
+ * Được gọi trên thread thực hiện thao tác ghi, nên cài đặt phải xử lý nhanh
+ * và tự chuyển sang thread của mình nếu cần.
+ */
+public interface ScheduleChangeListener {
+    void onScheduleAdded(Schedule schedule);
+
+    void onScheduleUpdated(Schedule schedule);
+
+    void onScheduleDeleted(int userId, int scheduleId);
+}
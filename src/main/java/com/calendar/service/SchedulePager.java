@@ -0,0 +1,93 @@
+package com.calendar.service;
+
+import java.util.List;
+
+import com.calendar.model.ScheduleQuery;
+import com.calendar.model.ScheduleSummary;
+
+/**
+ * Đọc từng trang của một truy vấn không giới hạn thời gian (toàn bộ lịch, theo danh mục...)
+ * bằng phân trang theo khóa (start_time, id) thay vì nạp hết vào bộ nhớ. Trang chỉ chứa
+ * ScheduleSummary (không đọc mô tả/ghi chú).
+ *
+ * Đối tượng bất biến và an toàn giữa các thread: trang kế tiếp được xác định bởi lịch
+ * đầu/cuối mà người gọi đang giữ, nên người gọi (bảng lịch) chỉ cần giữ một cửa sổ
+ * tối đa getMaxWindow() lịch và bỏ bớt đầu kia khi cuộn.
+ * Kích thước cấu hình qua calendar.list.pageSize và calendar.list.maxWindow.
+ */
+public class SchedulePager {
+    private static final int PAGE_SIZE = Integer.getInteger("calendar.list.pageSize", 200);
+    private static final int MAX_WINDOW = Math.max(2 * PAGE_SIZE, Integer.getInteger("calendar.list.maxWindow", 1000));
+
+    private final ScheduleService scheduleService;
+    private final ScheduleQuery query;
+
+    public SchedulePager(ScheduleService scheduleService, ScheduleQuery query) {
+        if (query.hasKeyword()) {
+            throw new IllegalArgumentException("Truy vấn theo từ khóa không phân trang theo khóa được");
+        }
+        this.scheduleService = scheduleService;
+        this.query = query;
+    }
+
+    public ScheduleQuery getQuery() {
+        return query;
+    }
+
+    public int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    public int getMaxWindow() {
+        return MAX_WINDOW;
+    }
+
+    public List<ScheduleSummary> firstPage() {
+        return fetch(query.toBuilder().limit(PAGE_SIZE));
+    }
+
+    /**
+     * Trang ngay sau lịch last
+     */
+    public List<ScheduleSummary> pageAfter(ScheduleSummary last) {
+        return fetch(query.toBuilder().after(last.getStartTime(), last.getId()).limit(PAGE_SIZE));
+    }
+
+    /**
+     * Trang ngay trước lịch first, sắp tăng dần
+     */
+    public List<ScheduleSummary> pageBefore(ScheduleSummary first) {
+        return fetch(query.toBuilder().before(first.getStartTime(), first.getId()).limit(PAGE_SIZE));
+    }
+
+    /**
+     * Đọc lại cửa sổ bắt đầu từ lịch first (kể cả first, null là từ đầu) với tối đa count
+     * lịch, dùng để làm mới phần đang hiển thị sau khi thêm/sửa/xóa mà không mất vị trí cuộn
+     */
+    public List<ScheduleSummary> reloadFrom(ScheduleSummary first, int count) {
+        ScheduleQuery.Builder builder = query.toBuilder().limit(windowLimit(count));
+        if (first != null) {
+            // (start, id - 1) đứng ngay trước (start, id) vì không có id nào nằm giữa
+            builder.after(first.getStartTime(), first.getId() - 1);
+        }
+        return fetch(builder);
+    }
+
+    /**
+     * Số lịch reloadFrom đọc cho cửa sổ count lịch; kết quả đủ số này thì có thể còn trang sau
+     */
+    public int windowLimit(int count) {
+        return Math.min(Math.max(count, PAGE_SIZE), MAX_WINDOW);
+    }
+
+    /**
+     * Trang có đủ PAGE_SIZE lịch thì có thể còn trang tiếp theo
+     */
+    public boolean isFullPage(List<ScheduleSummary> page) {
+        return page.size() >= PAGE_SIZE;
+    }
+
+    private List<ScheduleSummary> fetch(ScheduleQuery.Builder builder) {
+        return scheduleService.findScheduleSummaries(builder.build());
+    }
+}
@@ -1,50 +1,116 @@
 package com.calendar.service;
 
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
 
 import com.calendar.database.DatabaseManager;
+import com.calendar.model.BatchResult;
+import com.calendar.model.BusyInterval;
+import com.calendar.model.Recurrence;
 import com.calendar.model.Schedule;
+import com.calendar.model.ScheduleQuery;
+import com.calendar.model.ScheduleSearchResult;
+import com.calendar.model.ScheduleSummary;
+import com.calendar.util.IntervalTree;
+import com.calendar.util.SnippetBuilder;
+import com.calendar.util.TextNormalizer;
 
 public class ScheduleService {
+    private static final String INSERT_SQL = """
+        INSERT INTO schedules 
+        (user_id, title, description, note, start_time, end_time, 
+         is_reminder, reminder_minutes, category, created_at, updated_at, 
+         title_norm, description_norm, note_norm, category_norm, reminder_at, 
+         recurrence, recurrence_end, series_id, occurrence_start) 
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    private static final String UPDATE_SQL = """
+        UPDATE schedules 
+        SET title = ?, description = ?, note = ?, start_time = ?, end_time = ?, 
+            is_reminder = ?, reminder_minutes = ?, category = ?, updated_at = ?, 
+            title_norm = ?, description_norm = ?, note_norm = ?, category_norm = ?, 
+            reminder_at = ?, recurrence = ?, recurrence_end = ? 
+        WHERE id = ? AND user_id = ?
+    """;
+
+    private static final String DELETE_SQL = "DELETE FROM schedules WHERE id = ? AND user_id = ?";
+
+    // Lần lặp đã sửa riêng của một chuỗi, bị trigger schedules_series_ad xóa cùng chuỗi
+    private static final String OVERRIDE_IDS_SQL = "SELECT id FROM schedules WHERE series_id = ? AND user_id = ?";
+
+    // Các cột hiển thị trong danh sách, không gồm description/note
+    private static final String SUMMARY_COLUMNS =
+        "s.id, s.user_id, s.title, s.start_time, s.end_time, s.is_reminder, s.reminder_minutes, s.category, "
+        + "s.recurrence, s.series_id, s.occurrence_start";
+
+    // Điều kiện chuỗi lặp có lần lặp giao với [from, to), dùng idx_schedules_series
+    private static final String SERIES_RANGE_CONDITION =
+        "AND s.recurrence IS NOT NULL AND s.start_time < ? AND (s.recurrence_end IS NULL OR s.recurrence_end >= ?) ";
+
+    private static final Comparator<ScheduleSummary> START_ORDER =
+        Comparator.comparing(ScheduleSummary::getStartTime).thenComparingInt(ScheduleSummary::getId);
+
+    private static final int SNIPPET_LENGTH = 80;
+
+    // Lịch không lặp dài hơn ngưỡng này nằm trong idx_schedules_busy_long (cùng ngưỡng trong migration 14)
+    private static final long LONG_SCHEDULE_SECONDS = 86_400;
+
+    // Dùng chung cho mọi instance ScheduleService vì các màn hình tự tạo service riêng
+    private static final List<ScheduleChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
     private final DatabaseManager dbManager;
 
     public ScheduleService() {
         this.dbManager = DatabaseManager.getInstance();
     }
 
+    /**
+     * Đăng ký nhận sự kiện thêm/sửa/xóa lịch (kể cả thao tác hàng loạt)
+     */
+    public static void addChangeListener(ScheduleChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeChangeListener(ScheduleChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
     /**
      * Thêm lịch mới
      */
     @SuppressWarnings("CallToPrintStackTrace")
     public boolean addSchedule(Schedule schedule) {
-        String sql = """
-            INSERT INTO schedules 
-            (user_id, title, description, note, start_time, end_time, 
-             is_reminder, reminder_minutes, category, created_at, updated_at) 
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, schedule.getUserId());
-            pstmt.setString(2, schedule.getTitle());
-            pstmt.setString(3, schedule.getDescription());
-            pstmt.setString(4, schedule.getNote());
-            pstmt.setString(5, DatabaseManager.formatDateTime(schedule.getStartTime()));
-            pstmt.setString(6, DatabaseManager.formatDateTime(schedule.getEndTime()));
-            pstmt.setInt(7, schedule.isReminder() ? 1 : 0);
-            pstmt.setInt(8, schedule.getReminderMinutes());
-            pstmt.setString(9, schedule.getCategory());
-            pstmt.setString(10, DatabaseManager.formatDateTime(LocalDateTime.now()));
-            pstmt.setString(11, DatabaseManager.formatDateTime(LocalDateTime.now()));
-
-            pstmt.executeUpdate();
+        try {
+            int id = dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsert(pstmt, schedule, LocalDateTime.now());
+                    pstmt.executeUpdate();
+                    return readGeneratedId(pstmt);
+                }
+            });
+            schedule.setId(id);
             System.out.println("Đã thêm lịch: " + schedule.getTitle());
+            fireAdded(schedule);
             return true;
 
         } catch (SQLException e) {
@@ -54,33 +120,33 @@ public class ScheduleService {
     }
 
     /**
-     * Cập nhật lịch
+     * Cập nhật lịch. Với chuỗi lặp, trong cùng transaction: nếu thời điểm bắt đầu bị dời thì
+     * các lần lặp bị bỏ và occurrence_start của các lần sửa riêng được dời theo; nếu bỏ quy
+     * tắc lặp thì các lần sửa riêng bị xóa (trigger schedules_series_ad chỉ chạy khi xóa chuỗi).
      */
     @SuppressWarnings("CallToPrintStackTrace")
     public boolean updateSchedule(Schedule schedule) {
-        String sql = """
-            UPDATE schedules 
-            SET title = ?, description = ?, note = ?, start_time = ?, end_time = ?, 
-                is_reminder = ?, reminder_minutes = ?, category = ?, updated_at = ? 
-            WHERE id = ? AND user_id = ?
-        """;
-
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, schedule.getTitle());
-            pstmt.setString(2, schedule.getDescription());
-            pstmt.setString(3, schedule.getNote());
-            pstmt.setString(4, DatabaseManager.formatDateTime(schedule.getStartTime()));
-            pstmt.setString(5, DatabaseManager.formatDateTime(schedule.getEndTime()));
-            pstmt.setInt(6, schedule.isReminder() ? 1 : 0);
-            pstmt.setInt(7, schedule.getReminderMinutes());
-            pstmt.setString(8, schedule.getCategory());
-            pstmt.setString(9, DatabaseManager.formatDateTime(LocalDateTime.now()));
-            pstmt.setInt(10, schedule.getId());
-            pstmt.setInt(11, schedule.getUserId());
-
-            int rowsAffected = pstmt.executeUpdate();
+        List<Integer> removedOverrideIds = new ArrayList<>();
+        List<Schedule> movedOverrides = new ArrayList<>();
+        try {
+            int rowsAffected = dbManager.executeInTransaction(conn -> {
+                removedOverrideIds.clear();
+                movedOverrides.clear();
+                reconcileSeriesExceptions(conn, schedule, removedOverrideIds, movedOverrides);
+                try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                    bindUpdate(pstmt, schedule, LocalDateTime.now());
+                    return pstmt.executeUpdate();
+                }
+            });
             if (rowsAffected > 0) {
                 System.out.println("Đã cập nhật lịch: " + schedule.getTitle());
+                fireUpdated(schedule);
+                for (Schedule override : movedOverrides) {
+                    fireUpdated(override);
+                }
+                for (int overrideId : removedOverrideIds) {
+                    fireDeleted(schedule.getUserId(), overrideId);
+                }
                 return true;
             }
 
@@ -91,20 +157,86 @@ public class ScheduleService {
         return false;
     }
 
+    /**
+     * Giữ các lần lặp bị bỏ và các lần sửa riêng khớp với chuỗi sau khi sửa cả chuỗi.
+     * Không làm gì nếu lịch trong database không phải chuỗi lặp. Phải chạy trong transaction.
+     */
+    private void reconcileSeriesExceptions(Connection conn, Schedule schedule,
+                                           List<Integer> removedOverrideIds, List<Schedule> movedOverrides)
+            throws SQLException {
+        Long oldStart = null;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT start_time FROM schedules WHERE id = ? AND user_id = ? AND recurrence IS NOT NULL")) {
+            pstmt.setInt(1, schedule.getId());
+            pstmt.setInt(2, schedule.getUserId());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    oldStart = rs.getLong(1);
+                }
+            }
+        }
+        if (oldStart == null) {
+            return;
+        }
+
+        if (schedule.getRecurrence() == null) {
+            removedOverrideIds.addAll(findOverrideIds(conn, schedule.getId(), schedule.getUserId()));
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "DELETE FROM schedules WHERE series_id = ? AND user_id = ?")) {
+                pstmt.setInt(1, schedule.getId());
+                pstmt.setInt(2, schedule.getUserId());
+                pstmt.executeUpdate();
+            }
+            return;
+        }
+
+        long shiftSeconds = DatabaseManager.toEpochSecond(schedule.getStartTime()) - oldStart;
+        if (shiftSeconds == 0) {
+            return;
+        }
+        schedule.setRecurrence(schedule.getRecurrence().withExceptionsShifted(Duration.ofSeconds(shiftSeconds)));
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE schedules SET occurrence_start = occurrence_start + ? WHERE series_id = ? AND user_id = ?")) {
+            pstmt.setLong(1, shiftSeconds);
+            pstmt.setInt(2, schedule.getId());
+            pstmt.setInt(3, schedule.getUserId());
+            if (pstmt.executeUpdate() == 0) {
+                return;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT * FROM schedules WHERE series_id = ? AND user_id = ?")) {
+            pstmt.setInt(1, schedule.getId());
+            pstmt.setInt(2, schedule.getUserId());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    movedOverrides.add(mapResultSetToSchedule(rs));
+                }
+            }
+        }
+    }
+
     /**
      * Xóa lịch
      */
     @SuppressWarnings("CallToPrintStackTrace")
     public boolean deleteSchedule(int scheduleId, int userId) {
-        String sql = "DELETE FROM schedules WHERE id = ? AND user_id = ?";
-
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, scheduleId);
-            pstmt.setInt(2, userId);
-
-            int rowsAffected = pstmt.executeUpdate();
+        List<Integer> overrideIds = new ArrayList<>();
+        try {
+            int rowsAffected = dbManager.executeInTransaction(conn -> {
+                overrideIds.addAll(findOverrideIds(conn, scheduleId, userId));
+                try (PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+                    pstmt.setInt(1, scheduleId);
+                    pstmt.setInt(2, userId);
+                    return pstmt.executeUpdate();
+                }
+            });
             if (rowsAffected > 0) {
                 System.out.println("Đã xóa lịch ID: " + scheduleId);
+                fireDeleted(userId, scheduleId);
+                for (int overrideId : overrideIds) {
+                    fireDeleted(userId, overrideId);
+                }
                 return true;
             }
 
@@ -116,63 +248,525 @@ public class ScheduleService {
     }
 
     /**
-     * Lấy tất cả lịch của người dùng
+     * Thêm nhiều lịch bằng JDBC batch trong một transaction.
+     * Dòng không hợp lệ được ghi lỗi vào BatchResult mà không làm hỏng các dòng khác;
+     * id sinh ra được gán lại vào từng Schedule.
      */
     @SuppressWarnings("CallToPrintStackTrace")
-    public List<Schedule> getAllSchedulesByUser(int userId) {
-        List<Schedule> schedules = new ArrayList<>();
-        String sql = "SELECT * FROM schedules WHERE user_id = ? ORDER BY start_time ASC";
+    public BatchResult addSchedules(List<Schedule> schedules) {
+        BatchResult result = new BatchResult(schedules.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Integer> validRows = new ArrayList<>();
+        for (int i = 0; i < schedules.size(); i++) {
+            String error = validate(schedules.get(i));
+            if (error != null) {
+                result.markFailure(i, error);
+            } else {
+                validRows.add(i);
+            }
+        }
+        Map<Integer, String> conflicts = new LinkedHashMap<>();
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
+        try {
+            dbManager.executeInTransaction(conn -> {
+                // Kiểm tra trong cùng transaction (đang giữ write lock) nên không lịch nào
+                // được thêm xen vào giữa lúc kiểm tra và lúc chèn
+                conflicts.clear();
+                conflicts.putAll(findBatchConflicts(conn, schedules, validRows));
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    insertBatch(conn, schedules, validRows, now, result);
+                } catch (BatchUpdateException e) {
+                    // Có dòng bị database từ chối: làm lại từng dòng để biết chính xác dòng nào lỗi
+                    conn.rollback(savepoint);
+                    insertRowByRow(conn, schedules, validRows, now, result);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            markAllFailed(result, e);
+            return result;
+        }
 
+        for (Map.Entry<Integer, String> conflict : conflicts.entrySet()) {
+            result.markConflict(conflict.getKey(), conflict.getValue());
+        }
+        if (!conflicts.isEmpty()) {
+            System.out.println("Có " + conflicts.size() + " lịch trùng thời gian với lịch khác");
+        }
+
+        for (int i = 0; i < schedules.size(); i++) {
+            if (result.isSuccess(i)) {
+                schedules.get(i).setId(result.getId(i));
+                fireAdded(schedules.get(i));
+            }
+        }
+        System.out.println("Đã thêm " + result.getSuccessCount() + "/" + schedules.size() + " lịch");
+        return result;
+    }
+
+    /**
+     * Mô tả xung đột của các dòng trùng thời gian với lịch đã có hoặc với dòng đứng trước
+     * trong lô, theo số thứ tự dòng. Lịch đã có được tra từng dòng bằng truy vấn giới hạn
+     * quanh khoảng của dòng đó (findConflicts); các dòng của lô chưa có trong database nên
+     * được giữ trong một IntervalTree chỉ gồm các dòng của lô. Phải chạy trong transaction.
+     */
+    private Map<Integer, String> findBatchConflicts(Connection conn, List<Schedule> schedules, List<Integer> rows)
+            throws SQLException {
+        Map<Integer, String> conflicts = new LinkedHashMap<>();
+        Map<Integer, IntervalTree<ScheduleSummary>> pendingByUser = new HashMap<>();
+        for (int row : rows) {
+            Schedule schedule = schedules.get(row);
+            long start = DatabaseManager.toEpochSecond(schedule.getStartTime());
+            long end = DatabaseManager.toEpochSecond(schedule.getEndTime());
+            // Lịch dài 0 được coi như kéo dài một giây, giống ScheduleStore.findConflicts
+            long until = Math.max(end, start + 1);
+
+            IntervalTree<ScheduleSummary> pending = pendingByUser.computeIfAbsent(
+                schedule.getUserId(), k -> new IntervalTree<>());
+            List<ScheduleSummary> overlapping = findConflicts(conn, schedule.getUserId(), start, until);
+            overlapping.addAll(pending.findOverlapping(start, until));
+            if (!overlapping.isEmpty()) {
+                overlapping.sort(START_ORDER);
+                ScheduleSummary first = overlapping.get(0);
+                String description = (first.getId() < 0 ? "dòng " + (-first.getId() - 1) + " " : "")
+                    + "\"" + first.getTitle() + "\" (" + first.getStartTime() + ")";
+                if (overlapping.size() > 1) {
+                    description += " và " + (overlapping.size() - 1) + " lịch khác";
+                }
+                conflicts.put(row, description);
+            }
+
+            ScheduleSummary added = new ScheduleSummary(schedule);
+            added.setId(-(row + 1));
+            pending.put(row, start, end, added);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Lịch đã có của user giao với [start, end) (epoch giây, cùng điều kiện với truy vấn theo
+     * khoảng), gồm cả lần lặp của các chuỗi. Chỉ đọc các dòng quanh khoảng đó: lịch ngắn qua
+     * idx_schedules_busy từ một ngày trước "start", lịch dài qua idx_schedules_busy_long.
+     */
+    private List<ScheduleSummary> findConflicts(Connection conn, int userId, long start, long end)
+            throws SQLException {
+        Map<Integer, ScheduleSummary> found = new LinkedHashMap<>();
+
+        PreparedStatement shortRows = dbManager.prepareCached(conn, "SELECT " + SUMMARY_COLUMNS + " FROM schedules s "
+            + "WHERE s.user_id = ? AND s.recurrence IS NULL AND s.start_time >= ? AND s.start_time < ? "
+            + "AND (s.end_time > ? OR (s.end_time = ? AND s.start_time >= ?))");
+        shortRows.setInt(1, userId);
+        shortRows.setLong(2, start - LONG_SCHEDULE_SECONDS);
+        shortRows.setLong(3, end);
+        shortRows.setLong(4, start);
+        shortRows.setLong(5, start);
+        shortRows.setLong(6, start);
+        readSummaries(shortRows, found);
+
+        PreparedStatement longRows = dbManager.prepareCached(conn, "SELECT " + SUMMARY_COLUMNS + " FROM schedules s "
+            + "WHERE s.user_id = ? AND s.recurrence IS NULL AND s.end_time - s.start_time > 86400 "
+            + "AND s.end_time > ? AND s.start_time < ?");
+        longRows.setInt(1, userId);
+        longRows.setLong(2, start);
+        longRows.setLong(3, end);
+        readSummaries(longRows, found);
+
+        List<ScheduleSummary> conflicts = new ArrayList<>(found.values());
+        PreparedStatement series = dbManager.prepareCached(conn,
+            "SELECT " + SUMMARY_COLUMNS + " FROM schedules s WHERE s.user_id = ? " + SERIES_RANGE_CONDITION);
+        series.setInt(1, userId);
+        series.setLong(2, end);
+        series.setLong(3, start);
+        try (ResultSet rs = series.executeQuery()) {
+            while (rs.next()) {
+                conflicts.addAll(Recurrence.expand(mapResultSetToSummary(rs),
+                    DatabaseManager.fromEpochSecond(start), DatabaseManager.fromEpochSecond(end)));
+            }
+        }
+        return conflicts;
+    }
+
+    // Lịch dài có thể khớp cả hai truy vấn của findConflicts nên gộp theo id
+    private void readSummaries(PreparedStatement pstmt, Map<Integer, ScheduleSummary> found) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                schedules.add(mapResultSetToSchedule(rs));
+                ScheduleSummary summary = mapResultSetToSummary(rs);
+                found.put(summary.getId(), summary);
+            }
+        }
+    }
+
+    /**
+     * Chèn cả lô bằng một lần executeBatch. Transaction giữ write lock (BEGIN IMMEDIATE)
+     * và bảng dùng AUTOINCREMENT nên các dòng trong lô nhận id liên tiếp, kết thúc ở
+     * last_insert_rowid(); nhờ vậy không cần đọc generated key cho từng dòng.
+     */
+    private void insertBatch(Connection conn, List<Schedule> schedules, List<Integer> rows,
+                             LocalDateTime now, BatchResult result) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (int row : rows) {
+                bindInsert(pstmt, schedules.get(row), now);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+
+        long lastId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            lastId = rs.next() ? rs.getLong(1) : 0;
+        }
+
+        long firstId = lastId - rows.size() + 1;
+        for (int k = 0; k < rows.size(); k++) {
+            result.markSuccess(rows.get(k), (int) (firstId + k));
+        }
+    }
+
+    /**
+     * Đường chậm: chèn từng dòng (vẫn trong cùng transaction) và ghi lỗi theo dòng
+     */
+    private void insertRowByRow(Connection conn, List<Schedule> schedules, List<Integer> rows,
+                                LocalDateTime now, BatchResult result) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int row : rows) {
+                try {
+                    bindInsert(pstmt, schedules.get(row), now);
+                    pstmt.executeUpdate();
+                    result.markSuccess(row, readGeneratedId(pstmt));
+                } catch (SQLException e) {
+                    if (DatabaseManager.isBusy(e)) {
+                        throw e;
+                    }
+                    result.markFailure(row, e.getMessage());
+                }
             }
+        }
+    }
 
+    /**
+     * Cập nhật nhiều lịch bằng JDBC batch trong một transaction.
+     * Dòng không tồn tại (hoặc không thuộc user) được báo lỗi theo từng dòng.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public BatchResult updateSchedules(List<Schedule> schedules) {
+        BatchResult result = new BatchResult(schedules.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        try {
+            dbManager.executeInTransaction(conn -> {
+                List<Integer> batchedRows = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                    for (int i = 0; i < schedules.size(); i++) {
+                        String error = validate(schedules.get(i));
+                        if (error != null) {
+                            result.markFailure(i, error);
+                            continue;
+                        }
+                        bindUpdate(pstmt, schedules.get(i), now);
+                        pstmt.addBatch();
+                        batchedRows.add(i);
+                    }
+
+                    applyBatchCounts(pstmt.executeBatch(), batchedRows, result,
+                        row -> schedules.get(row).getId());
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            markAllFailed(result, e);
+            return result;
         }
 
-        return schedules;
+        for (int i = 0; i < schedules.size(); i++) {
+            if (result.isSuccess(i)) {
+                fireUpdated(schedules.get(i));
+            }
+        }
+        System.out.println("Đã cập nhật " + result.getSuccessCount() + "/" + schedules.size() + " lịch");
+        return result;
     }
 
     /**
-     * Lấy lịch theo ngày
+     * Xóa nhiều lịch của một user bằng JDBC batch trong một transaction
      */
     @SuppressWarnings("CallToPrintStackTrace")
-    public List<Schedule> getSchedulesByDate(int userId, LocalDate date) {
-        List<Schedule> schedules = new ArrayList<>();
-        String sql = """
-            SELECT * FROM schedules 
-            WHERE user_id = ? 
-            AND date(start_time) = ? 
-            ORDER BY start_time ASC
-        """;
+    public BatchResult deleteSchedules(List<Integer> scheduleIds, int userId) {
+        BatchResult result = new BatchResult(scheduleIds.size());
+        List<Integer> overrideIds = new ArrayList<>();
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            pstmt.setString(2, date.toString());
-            ResultSet rs = pstmt.executeQuery();
+        try {
+            dbManager.executeInTransaction(conn -> {
+                for (int scheduleId : scheduleIds) {
+                    overrideIds.addAll(findOverrideIds(conn, scheduleId, userId));
+                }
+                List<Integer> batchedRows = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+                    for (int i = 0; i < scheduleIds.size(); i++) {
+                        pstmt.setInt(1, scheduleIds.get(i));
+                        pstmt.setInt(2, userId);
+                        pstmt.addBatch();
+                        batchedRows.add(i);
+                    }
 
-            while (rs.next()) {
-                schedules.add(mapResultSetToSchedule(rs));
+                    applyBatchCounts(pstmt.executeBatch(), batchedRows, result, scheduleIds::get);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            markAllFailed(result, e);
+            return result;
+        }
+
+        for (int i = 0; i < scheduleIds.size(); i++) {
+            if (result.isSuccess(i)) {
+                fireDeleted(userId, scheduleIds.get(i));
+            }
+        }
+        for (int overrideId : overrideIds) {
+            fireDeleted(userId, overrideId);
+        }
+        System.out.println("Đã xóa " + result.getSuccessCount() + "/" + scheduleIds.size() + " lịch");
+        return result;
+    }
+
+    /**
+     * Bỏ một lần lặp của chuỗi (lần lặp bắt đầu tại occurrenceStart không còn được sinh ra)
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public boolean cancelOccurrence(int seriesId, int userId, LocalDateTime occurrenceStart) {
+        try {
+            Schedule series = dbManager.executeInTransaction(conn -> addException(conn, seriesId, userId, occurrenceStart));
+            if (series != null) {
+                System.out.println("Đã bỏ lần lặp " + occurrenceStart + " của lịch: " + series.getTitle());
+                fireUpdated(series);
+                return true;
             }
 
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return schedules;
+        return false;
+    }
+
+    /**
+     * Sửa riêng một lần lặp: override là bản sao của lần lặp (occurrenceAt) đã chỉnh sửa,
+     * có seriesId và occurrenceStart. Lần lặp gốc bị bỏ khỏi chuỗi và override được lưu
+     * thành một lịch thường trong cùng transaction.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public boolean overrideOccurrence(Schedule override) {
+        if (override.getSeriesId() <= 0 || override.getOccurrenceStart() == null) {
+            throw new IllegalArgumentException("Lịch không phải là một lần lặp của chuỗi: " + override);
+        }
+        override.setRecurrence(null);
+        String error = validate(override);
+        if (error != null) {
+            System.err.println("Không thể sửa lần lặp: " + error);
+            return false;
+        }
+
+        try {
+            Schedule series = dbManager.executeInTransaction(conn -> {
+                Schedule updated = addException(conn, override.getSeriesId(), override.getUserId(),
+                                                override.getOccurrenceStart());
+                if (updated == null) {
+                    return null;
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsert(pstmt, override, LocalDateTime.now());
+                    pstmt.executeUpdate();
+                    override.setId(readGeneratedId(pstmt));
+                }
+                return updated;
+            });
+            if (series != null) {
+                System.out.println("Đã sửa lần lặp " + override.getOccurrenceStart() + " của lịch: " + series.getTitle());
+                fireAdded(override);
+                fireUpdated(series);
+                return true;
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Thêm một lần lặp bị bỏ vào quy tắc của chuỗi; trả về chuỗi sau khi cập nhật hoặc
+     * null nếu không có chuỗi. Phải chạy trong transaction.
+     */
+    private Schedule addException(Connection conn, int seriesId, int userId, LocalDateTime occurrenceStart)
+            throws SQLException {
+        Schedule series = null;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT * FROM schedules WHERE id = ? AND user_id = ? AND recurrence IS NOT NULL")) {
+            pstmt.setInt(1, seriesId);
+            pstmt.setInt(2, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    series = mapResultSetToSchedule(rs);
+                }
+            }
+        }
+        if (series == null) {
+            return null;
+        }
+
+        series.setRecurrence(series.getRecurrence().withException(occurrenceStart));
+        series.setUpdatedAt(LocalDateTime.now());
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE schedules SET recurrence = ?, updated_at = ? WHERE id = ?")) {
+            pstmt.setString(1, series.getRecurrence().toRule());
+            pstmt.setLong(2, DatabaseManager.toEpochSecond(series.getUpdatedAt()));
+            pstmt.setInt(3, seriesId);
+            pstmt.executeUpdate();
+        }
+        return series;
+    }
+
+    private static List<Integer> findOverrideIds(Connection conn, int seriesId, int userId) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(OVERRIDE_IDS_SQL)) {
+            pstmt.setInt(1, seriesId);
+            pstmt.setInt(2, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Lỗi của một listener không được làm hỏng thao tác ghi đã commit hay các listener khác
+    @SuppressWarnings("CallToPrintStackTrace")
+    private static void fireAdded(Schedule schedule) {
+        for (ScheduleChangeListener listener : changeListeners) {
+            try {
+                listener.onScheduleAdded(schedule);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @SuppressWarnings("CallToPrintStackTrace")
+    private static void fireUpdated(Schedule schedule) {
+        for (ScheduleChangeListener listener : changeListeners) {
+            try {
+                listener.onScheduleUpdated(schedule);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @SuppressWarnings("CallToPrintStackTrace")
+    private static void fireDeleted(int userId, int scheduleId) {
+        for (ScheduleChangeListener listener : changeListeners) {
+            try {
+                listener.onScheduleDeleted(userId, scheduleId);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Kiểm tra dữ liệu tối thiểu trước khi ghi, trả về thông báo lỗi hoặc null nếu hợp lệ
+     */
+    private static String validate(Schedule schedule) {
+        if (schedule == null) {
+            return "Lịch rỗng";
+        }
+        if (schedule.getTitle() == null || schedule.getTitle().trim().isEmpty()) {
+            return "Tiêu đề không được để trống";
+        }
+        if (schedule.getStartTime() == null || schedule.getEndTime() == null) {
+            return "Thiếu thời gian bắt đầu hoặc kết thúc";
+        }
+        if (schedule.getEndTime().isBefore(schedule.getStartTime())) {
+            return "Thời gian kết thúc phải sau thời gian bắt đầu";
+        }
+        if (schedule.getRecurrence() != null && schedule.getRecurrence().getUntil() != null
+                && schedule.getRecurrence().getUntil().isBefore(schedule.getStartTime().toLocalDate())) {
+            return "Ngày kết thúc lặp phải sau ngày bắt đầu";
+        }
+        return null;
+    }
+
+    private static void applyBatchCounts(int[] counts, List<Integer> batchedRows, BatchResult result,
+                                         IntUnaryOperator idOfRow) {
+        for (int k = 0; k < batchedRows.size(); k++) {
+            int row = batchedRows.get(k);
+            if (k < counts.length && (counts[k] > 0 || counts[k] == Statement.SUCCESS_NO_INFO)) {
+                result.markSuccess(row, idOfRow.applyAsInt(row));
+            } else {
+                result.markFailure(row, "Không tìm thấy lịch");
+            }
+        }
+    }
+
+    private static void markAllFailed(BatchResult result, SQLException e) {
+        for (int i = 0; i < result.size(); i++) {
+            result.markFailure(i, "Transaction thất bại: " + e.getMessage());
+        }
+    }
+
+    private static int readGeneratedId(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Lấy tất cả lịch của người dùng
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<Schedule> getAllSchedulesByUser(int userId) {
+        String sql = "SELECT * FROM schedules WHERE user_id = ? ORDER BY start_time ASC";
+
+        try {
+            return querySchedules(sql, pstmt -> pstmt.setInt(1, userId));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Lấy lịch theo ngày (gồm cả lịch kéo dài qua ngày đó)
+     */
+    public List<Schedule> getSchedulesByDate(int userId, LocalDate date) {
+        return getSchedulesInRange(userId, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Lấy các lịch giao với khoảng [from, to), xem điều kiện ở {@link #findSchedules}
+     */
+    public List<Schedule> getSchedulesInRange(int userId, LocalDateTime from, LocalDateTime to) {
+        return toSchedules(findSchedules(ScheduleQuery.forUser(userId).between(from, to).build()));
     }
 
     /**
-     * Lấy lịch có nhắc nhở sắp tới
+     * Lấy lịch có nhắc nhở sẽ phát trong 24 giờ tới, sắp theo thời điểm nhắc
      */
     @SuppressWarnings("CallToPrintStackTrace")
     public List<Schedule> getUpcomingReminders(int userId) {
-        List<Schedule> schedules = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime checkUntil = now.plusHours(24); // Kiểm tra 24h tới
 
@@ -180,59 +774,890 @@ public class ScheduleService {
             SELECT * FROM schedules 
             WHERE user_id = ? 
             AND is_reminder = 1 
-            AND start_time BETWEEN ? AND ? 
-            ORDER BY start_time ASC
+            AND reminder_at BETWEEN ? AND ? 
+            ORDER BY reminder_at ASC
         """;
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            pstmt.setString(2, DatabaseManager.formatDateTime(now));
-            pstmt.setString(3, DatabaseManager.formatDateTime(checkUntil));
-            ResultSet rs = pstmt.executeQuery();
+        try {
+            return mergeByReminderTime(querySchedules(sql, pstmt -> {
+                pstmt.setInt(1, userId);
+                pstmt.setLong(2, DatabaseManager.toEpochSecond(now));
+                pstmt.setLong(3, DatabaseManager.toEpochSecond(checkUntil));
+            }), getSeriesReminders(userId, now.minusSeconds(1), checkUntil));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
 
-            while (rs.next()) {
-                schedules.add(mapResultSetToSchedule(rs));
-            }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Lịch có nhắc nhở của một user với thời điểm nhắc trong khoảng (after, until]
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<Schedule> getRemindersBetween(int userId, LocalDateTime after, LocalDateTime until) {
+        String sql = """
+            SELECT * FROM schedules 
+            WHERE user_id = ? 
+            AND is_reminder = 1 
+            AND reminder_at > ? AND reminder_at <= ? 
+            ORDER BY reminder_at ASC
+        """;
 
+        try {
+            return mergeByReminderTime(querySchedules(sql, pstmt -> {
+                pstmt.setInt(1, userId);
+                pstmt.setLong(2, DatabaseManager.toEpochSecond(after));
+                pstmt.setLong(3, DatabaseManager.toEpochSecond(until));
+            }), getSeriesReminders(userId, after, until));
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return schedules;
+        return new ArrayList<>();
     }
 
     /**
-     * Tìm kiếm lịch
+     * Lịch có nhắc nhở của MỌI user với thời điểm nhắc trong khoảng (after, until],
+     * dùng idx_schedules_reminder_due để bộ máy nhắc nhở nạp một lần cho tất cả user
      */
     @SuppressWarnings("CallToPrintStackTrace")
-    public List<Schedule> searchSchedules(int userId, String keyword) {
-        List<Schedule> schedules = new ArrayList<>();
+    public List<Schedule> getAllRemindersBetween(LocalDateTime after, LocalDateTime until) {
+        String sql = """
+            SELECT * FROM schedules 
+            WHERE is_reminder = 1 
+            AND reminder_at > ? AND reminder_at <= ? 
+            ORDER BY reminder_at ASC
+        """;
+
+        try {
+            return mergeByReminderTime(querySchedules(sql, pstmt -> {
+                pstmt.setLong(1, DatabaseManager.toEpochSecond(after));
+                pstmt.setLong(2, DatabaseManager.toEpochSecond(until));
+            }), getSeriesReminders(null, after, until));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Nhắc nhở của user đã đến hạn trong khoảng (after, until] nhưng chưa có trong
+     * nhật ký reminder_deliveries (ứng dụng đóng khi đến giờ nhắc). Chỉ seek trên
+     * idx_schedules_reminder_at trong khoảng đã cho, không quét toàn bộ lịch sử.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<Schedule> getMissedReminders(int userId, LocalDateTime after, LocalDateTime until) {
+        String sql = """
+            SELECT s.* FROM schedules s 
+            WHERE s.user_id = ? 
+            AND s.is_reminder = 1 
+            AND s.reminder_at > ? AND s.reminder_at <= ? 
+            AND NOT EXISTS ( 
+                SELECT 1 FROM reminder_deliveries d 
+                WHERE d.schedule_id = s.id AND d.reminder_at = s.reminder_at 
+            ) 
+            ORDER BY s.reminder_at ASC
+        """;
+
+        try {
+            List<Schedule> due = getSeriesReminders(userId, after, until);
+            List<Schedule> occurrences = due.isEmpty() ? due : dbManager.executeRead(conn -> {
+                PreparedStatement pstmt = dbManager.prepareCached(conn,
+                    "SELECT 1 FROM reminder_deliveries WHERE schedule_id = ? AND reminder_at = ?");
+                List<Schedule> missed = new ArrayList<>();
+                for (Schedule occurrence : due) {
+                    // Lần lặp không có dòng riêng: đối chiếu nhật ký theo (id chuỗi, thời điểm nhắc)
+                    pstmt.setInt(1, occurrence.getId());
+                    pstmt.setLong(2, DatabaseManager.toEpochSecond(occurrence.getReminderTime()));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            missed.add(occurrence);
+                        }
+                    }
+                }
+                return missed;
+            });
+            return mergeByReminderTime(querySchedules(sql, pstmt -> {
+                pstmt.setInt(1, userId);
+                pstmt.setLong(2, DatabaseManager.toEpochSecond(after));
+                pstmt.setLong(3, DatabaseManager.toEpochSecond(until));
+            }), occurrences);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Lịch có nhắc nhở phát sớm nhất sau thời điểm "after" (một lần seek trên
+     * idx_schedules_reminder_at), hoặc null nếu không còn nhắc nhở nào
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public Schedule getNextReminder(int userId, LocalDateTime after) {
         String sql = """
             SELECT * FROM schedules 
             WHERE user_id = ? 
-            AND (title LIKE ? OR description LIKE ? OR note LIKE ?) 
-            ORDER BY start_time DESC
+            AND is_reminder = 1 
+            AND reminder_at > ? 
+            ORDER BY reminder_at ASC 
+            LIMIT 1
         """;
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            String searchPattern = "%" + keyword + "%";
-            pstmt.setInt(1, userId);
-            pstmt.setString(2, searchPattern);
-            pstmt.setString(3, searchPattern);
-            pstmt.setString(4, searchPattern);
-            ResultSet rs = pstmt.executeQuery();
+        try {
+            List<Schedule> schedules = querySchedules(sql, pstmt -> {
+                pstmt.setInt(1, userId);
+                pstmt.setLong(2, DatabaseManager.toEpochSecond(after));
+            });
+            Schedule next = schedules.isEmpty() ? null : schedules.get(0);
+            for (Schedule series : queryReminderSeries(userId, null, after)) {
+                LocalDateTime start = series.getRecurrence().nextStart(series.getStartTime(),
+                    after.plusMinutes(series.getReminderMinutes()));
+                if (start == null) {
+                    continue;
+                }
+                Schedule occurrence = series.occurrenceAt(start);
+                if (next == null || occurrence.getReminderTime().isBefore(next.getReminderTime())) {
+                    next = occurrence;
+                }
+            }
+            return next;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Các lần lặp có nhắc nhở với thời điểm nhắc trong (after, until] của các chuỗi lặp
+     * (userId null: mọi user), sắp theo thời điểm nhắc. Chỉ sinh lần lặp trong khoảng đó.
+     */
+    private List<Schedule> getSeriesReminders(Integer userId, LocalDateTime after, LocalDateTime until)
+            throws SQLException {
+        List<Schedule> occurrences = new ArrayList<>();
+        for (Schedule series : queryReminderSeries(userId, until, after)) {
+            // Nhắc trong (after, until] <=> bắt đầu trong [after + phút nhắc + 1s, until + phút nhắc + 1s)
+            for (LocalDateTime start : series.getRecurrence().startsBetween(series.getStartTime(),
+                    after.plusMinutes(series.getReminderMinutes()).plusSeconds(1),
+                    until.plusMinutes(series.getReminderMinutes()).plusSeconds(1), Integer.MAX_VALUE)) {
+                occurrences.add(series.occurrenceAt(start));
+            }
+        }
+        occurrences.sort(Comparator.comparing(Schedule::getReminderTime));
+        return occurrences;
+    }
+
+    /**
+     * Chuỗi lặp có nhắc nhở, lần nhắc đầu tiên không sau "until" (null: không giới hạn) và
+     * chưa kết thúc trước "after"; dùng idx_schedules_series_reminder
+     */
+    private List<Schedule> queryReminderSeries(Integer userId, LocalDateTime until, LocalDateTime after)
+            throws SQLException {
+        String sql = """
+            SELECT * FROM schedules s 
+            WHERE s.recurrence IS NOT NULL AND s.is_reminder = 1 
+            AND s.start_time - s.reminder_minutes * 60 <= ? 
+            AND (s.recurrence_end IS NULL OR s.recurrence_end >= ?) 
+        """ + (userId != null ? "AND s.user_id = ?" : "");
+
+        return querySchedules(sql, pstmt -> {
+            pstmt.setLong(1, until != null ? DatabaseManager.toEpochSecond(until) : Long.MAX_VALUE);
+            pstmt.setLong(2, DatabaseManager.toEpochSecond(after));
+            if (userId != null) {
+                pstmt.setInt(3, userId);
+            }
+        });
+    }
+
+    private static List<Schedule> mergeByReminderTime(List<Schedule> schedules, List<Schedule> occurrences) {
+        if (occurrences.isEmpty()) {
+            return schedules;
+        }
+        List<Schedule> merged = new ArrayList<>(schedules);
+        merged.addAll(occurrences);
+        merged.sort(Comparator.comparing(Schedule::getReminderTime));
+        return merged;
+    }
+
+    /**
+     * Tìm kiếm lịch (full-text, sắp theo mức độ liên quan)
+     */
+    public List<Schedule> searchSchedules(int userId, String keyword) {
+        return toSchedules(searchSchedulesRanked(userId, keyword, -1));
+    }
+
+    /**
+     * Tìm kiếm full-text trên chỉ mục FTS5 schedules_fts (đánh trên các cột *_norm).
+     * Keyword được bỏ dấu và chuyển chữ thường nên "cong viec" khớp "Công việc";
+     * mỗi từ được so khớp theo tiền tố ("hop" khớp "họp", "hợp đồng"),
+     * kết quả sắp theo bm25 (tiêu đề nặng hơn mô tả, mô tả nặng hơn ghi chú)
+     * và kèm đoạn trích có đánh dấu [từ khớp]. limit < 0 nghĩa là không giới hạn.
+     */
+    public List<ScheduleSearchResult> searchSchedulesRanked(int userId, String keyword, int limit) {
+        if (splitSearchTokens(keyword).isEmpty()) {
+            return new ArrayList<>();
+        }
+        return findSchedules(ScheduleQuery.forUser(userId).keyword(keyword).limit(limit).build());
+    }
+
+    /**
+     * Truy vấn lịch theo tổ hợp điều kiện bất kỳ bằng MỘT câu SQL có tham số:
+     * - keyword: JOIN schedules_fts MATCH, sắp theo bm25 và kèm đoạn trích
+     * - khoảng thời gian [from, to): lịch bắt đầu trước "to" và kết thúc sau "from"
+     *   (lịch dài 0 bắt đầu đúng tại "from" cũng được tính). Dấu "+" trước start_time
+     *   buộc planner quét idx_schedules_user_end từ "from" trở đi thay vì quét
+     *   idx_schedules_user_start từ đầu lịch sử chỉ để tránh bước sắp xếp.
+     * - danh mục: so khớp category_norm (có index, không phân biệt dấu/hoa thường)
+     * - chỉ lịch có nhắc nhở: is_reminder = 1
+     * - con trỏ after/before: so sánh (start_time, id) với con trỏ; idx_schedules_user_start
+     *   và idx_schedules_user_category đã chứa id (rowid) sau start_time nên mỗi trang là
+     *   một lần seek trên index, không phụ thuộc trang nằm sâu bao nhiêu như OFFSET
+     * - chuỗi lặp: truy vấn có khoảng thời gian đọc thêm các chuỗi giao với khoảng (cùng các
+     *   điều kiện còn lại) và chỉ sinh lần lặp trong khoảng đó; không có khoảng thời gian thì
+     *   mỗi chuỗi là một dòng với thời gian của lần đầu tiên
+     * Mỗi dạng truy vấn (tổ hợp điều kiện) cho ra cùng một câu SQL nên statement
+     * được prepare một lần và dùng lại qua DatabaseManager.prepareCached.
+     * Không có keyword thì kết quả sắp theo (start_time, id), snippet là null.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<ScheduleSearchResult> findSchedules(ScheduleQuery query) {
+        List<String> tokens = splitSearchTokens(query.getKeyword());
+        if (query.hasKeyword() && tokens.isEmpty()) {
+            // Keyword chỉ gồm ký tự đặc biệt: không có lịch nào khớp
+            return new ArrayList<>();
+        }
+
+        StringBuilder sql = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        appendSelect(sql, params, query, tokens);
+        appendConditions(sql, params, query, !tokens.isEmpty());
+        boolean backward = query.getBefore() != null;
+
+        try {
+            List<ScheduleSearchResult> results = dbManager.executeRead(conn -> {
+                List<ScheduleSearchResult> rows = readSearchResults(conn, sql.toString(), params, tokens);
+                if (backward) {
+                    // Trang phía trước được đọc ngược từ con trỏ, trả về theo thứ tự tăng dần
+                    Collections.reverse(rows);
+                }
+                return rows;
+            });
+            if (!query.hasRange()) {
+                // Không giới hạn thời gian: mỗi chuỗi lặp là một dòng
+                return results;
+            }
+
+            StringBuilder seriesSql = new StringBuilder();
+            List<Object> seriesParams = new ArrayList<>();
+            appendSelect(seriesSql, seriesParams, query, tokens);
+            appendSeriesConditions(seriesSql, seriesParams, query);
+            List<ScheduleSearchResult> occurrences = new ArrayList<>();
+            for (ScheduleSearchResult series : dbManager.executeRead(
+                    conn -> readSearchResults(conn, seriesSql.toString(), seriesParams, tokens))) {
+                for (Schedule occurrence : Recurrence.expand(series.getSchedule(),
+                                                             query.getRangeStart(), query.getRangeEnd())) {
+                    occurrences.add(new ScheduleSearchResult(occurrence, series.getSnippet(), series.getRank()));
+                }
+            }
+            Comparator<ScheduleSearchResult> order = Comparator.comparing(ScheduleSearchResult::getSchedule, START_ORDER);
+            if (!tokens.isEmpty()) {
+                order = Comparator.comparingDouble(ScheduleSearchResult::getRank).thenComparing(order);
+            }
+            return mergeOccurrences(results, occurrences, query, ScheduleSearchResult::getSchedule, order);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Phần SELECT ... WHERE ... s.user_id = ? của findSchedules (kèm JOIN FTS khi có từ khóa)
+     */
+    private static void appendSelect(StringBuilder sql, List<Object> params, ScheduleQuery query, List<String> tokens) {
+        if (!tokens.isEmpty()) {
+            sql.append("""
+                SELECT s.*, bm25(schedules_fts, 10.0, 3.0, 1.0) AS match_rank 
+                FROM schedules_fts 
+                JOIN schedules s ON s.id = schedules_fts.rowid 
+                WHERE schedules_fts MATCH ? AND s.user_id = ? 
+            """);
+            params.add(buildMatchQuery(tokens));
+        } else {
+            sql.append("SELECT s.*, 0.0 AS match_rank FROM schedules s WHERE s.user_id = ? ");
+        }
+        params.add(query.getUserId());
+    }
+
+    private List<ScheduleSearchResult> readSearchResults(Connection conn, String sql, List<Object> params,
+                                                         List<String> tokens) throws SQLException {
+        PreparedStatement pstmt = dbManager.prepareCached(conn, sql);
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, params.get(i));
+        }
+
+        List<ScheduleSearchResult> results = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Schedule schedule = mapResultSetToSchedule(rs);
+                String snippet = null;
+                if (!tokens.isEmpty()) {
+                    // Đoạn trích lấy từ văn bản gốc để giữ nguyên dấu
+                    snippet = SnippetBuilder.build(
+                        Arrays.asList(schedule.getTitle(), schedule.getDescription(), schedule.getNote()),
+                        tokens, SNIPPET_LENGTH);
+                }
+                results.add(new ScheduleSearchResult(schedule, snippet, rs.getDouble("match_rank")));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Nối các điều kiện chung (khoảng thời gian, danh mục, nhắc nhở, con trỏ), ORDER BY và
+     * LIMIT của findSchedules/findScheduleSummaries vào sau "WHERE ... s.user_id = ?"
+     */
+    private static void appendConditions(StringBuilder sql, List<Object> params, ScheduleQuery query, boolean ranked) {
+        if (query.hasRange()) {
+            long fromEpoch = DatabaseManager.toEpochSecond(query.getRangeStart());
+            long toEpoch = DatabaseManager.toEpochSecond(query.getRangeEnd());
+            // Dòng chuỗi lặp chỉ mang thời gian lần đầu; các lần lặp được sinh riêng (appendSeriesConditions)
+            sql.append("AND s.end_time >= ? AND +s.start_time < ? AND (s.end_time > ? OR s.start_time >= ?) "
+                + "AND s.recurrence IS NULL ");
+            params.add(fromEpoch);
+            params.add(toEpoch);
+            params.add(fromEpoch);
+            params.add(fromEpoch);
+        }
+        appendFilters(sql, params, query);
+        ScheduleQuery.Cursor cursor = query.getAfter() != null ? query.getAfter() : query.getBefore();
+        boolean backward = query.getBefore() != null;
+        if (cursor != null) {
+            sql.append(backward ? "AND (s.start_time, s.id) < (?, ?) " : "AND (s.start_time, s.id) > (?, ?) ");
+            params.add(DatabaseManager.toEpochSecond(cursor.startTime()));
+            params.add(cursor.id());
+        }
+
+        if (ranked) {
+            sql.append("ORDER BY match_rank, s.start_time ");
+        } else if (backward) {
+            sql.append("ORDER BY s.start_time DESC, s.id DESC ");
+        } else {
+            sql.append("ORDER BY s.start_time ASC, s.id ASC ");
+        }
+        sql.append("LIMIT ?");
+        params.add(query.getLimit());
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> params, ScheduleQuery query) {
+        if (query.hasCategory()) {
+            sql.append("AND s.category_norm = ? ");
+            params.add(TextNormalizer.normalize(query.getCategory()));
+        }
+        if (query.isReminderOnly()) {
+            sql.append("AND s.is_reminder = 1 ");
+        }
+    }
+
+    /**
+     * Điều kiện đọc các chuỗi lặp có lần lặp giao với khoảng của truy vấn (cùng danh mục,
+     * nhắc nhở). Số chuỗi của một user nhỏ nên không dùng con trỏ/LIMIT ở đây: các lần lặp
+     * được sinh cho đúng khoảng rồi gộp với lịch thường trong mergeOccurrences.
+     */
+    private static void appendSeriesConditions(StringBuilder sql, List<Object> params, ScheduleQuery query) {
+        sql.append(SERIES_RANGE_CONDITION);
+        params.add(DatabaseManager.toEpochSecond(query.getRangeEnd()));
+        params.add(DatabaseManager.toEpochSecond(query.getRangeStart()));
+        appendFilters(sql, params, query);
+        sql.append("ORDER BY s.start_time");
+    }
+
+    /**
+     * Gộp các lần lặp vào kết quả đã đọc từ database (đã theo thứ tự order), rồi áp dụng
+     * lại con trỏ và LIMIT của truy vấn cho cả hai phần
+     */
+    private static <T> List<T> mergeOccurrences(List<T> rows, List<T> occurrences, ScheduleQuery query,
+                                                Function<T, ScheduleSummary> summaryOf, Comparator<T> order) {
+        if (occurrences.isEmpty()) {
+            return rows;
+        }
+
+        ScheduleQuery.Cursor after = query.getAfter();
+        ScheduleQuery.Cursor before = query.getBefore();
+        List<T> merged = new ArrayList<>(rows.size() + occurrences.size());
+        merged.addAll(rows);
+        for (T occurrence : occurrences) {
+            ScheduleSummary summary = summaryOf.apply(occurrence);
+            if ((after != null && compareToCursor(summary, after) <= 0)
+                    || (before != null && compareToCursor(summary, before) >= 0)) {
+                continue;
+            }
+            merged.add(occurrence);
+        }
+        merged.sort(order);
+
+        int limit = query.getLimit();
+        if (limit >= 0 && merged.size() > limit) {
+            // Trang phía trước giữ các lịch gần con trỏ nhất, tức là phần cuối
+            merged = new ArrayList<>(before != null
+                ? merged.subList(merged.size() - limit, merged.size())
+                : merged.subList(0, limit));
+        }
+        return merged;
+    }
+
+    private static int compareToCursor(ScheduleSummary summary, ScheduleQuery.Cursor cursor) {
+        int result = summary.getStartTime().compareTo(cursor.startTime());
+        return result != 0 ? result : Integer.compare(summary.getId(), cursor.id());
+    }
+
+    /**
+     * Như findSchedules (không có từ khóa) nhưng chỉ đọc các cột hiển thị trong danh sách:
+     * không đọc và không tạo chuỗi cho description/note. Chi tiết lấy sau bằng getScheduleById.
+     */
+    public List<ScheduleSummary> findScheduleSummaries(ScheduleQuery query) {
+        return findScheduleSummaries(query, true);
+    }
+
+    /**
+     * expandSeries = false: truy vấn theo khoảng chỉ trả về lịch không lặp (ScheduleStore tự
+     * giữ các chuỗi lặp, đọc bằng getSeriesInRange)
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    private List<ScheduleSummary> findScheduleSummaries(ScheduleQuery query, boolean expandSeries) {
+        if (query.hasKeyword()) {
+            throw new IllegalArgumentException("Tìm theo từ khóa dùng findSchedules");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT " + SUMMARY_COLUMNS + " FROM schedules s WHERE s.user_id = ? ");
+        List<Object> params = new ArrayList<>();
+        params.add(query.getUserId());
+        appendConditions(sql, params, query, false);
+
+        try {
+            List<ScheduleSummary> results = dbManager.executeRead(conn -> {
+                PreparedStatement pstmt = dbManager.prepareCached(conn, sql.toString());
+                for (int i = 0; i < params.size(); i++) {
+                    pstmt.setObject(i + 1, params.get(i));
+                }
+
+                List<ScheduleSummary> summaries = new ArrayList<>();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        summaries.add(mapResultSetToSummary(rs));
+                    }
+                }
+                if (query.getBefore() != null) {
+                    Collections.reverse(summaries);
+                }
+                return summaries;
+            });
+            if (!query.hasRange() || !expandSeries) {
+                return results;
+            }
+
+            List<ScheduleSummary> occurrences = new ArrayList<>();
+            for (ScheduleSummary series : querySeriesSummaries(query)) {
+                occurrences.addAll(Recurrence.expand(series, query.getRangeStart(), query.getRangeEnd()));
+            }
+            return mergeOccurrences(results, occurrences, query, Function.identity(), START_ORDER);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    private List<ScheduleSummary> querySeriesSummaries(ScheduleQuery query) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT " + SUMMARY_COLUMNS + " FROM schedules s WHERE s.user_id = ? ");
+        List<Object> params = new ArrayList<>();
+        params.add(query.getUserId());
+        appendSeriesConditions(sql, params, query);
+
+        return dbManager.executeRead(conn -> {
+            PreparedStatement pstmt = dbManager.prepareCached(conn, sql.toString());
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+
+            List<ScheduleSummary> series = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    series.add(mapResultSetToSummary(rs));
+                }
+            }
+            return series;
+        });
+    }
+
+    /**
+     * Tóm tắt các lịch không lặp giao với khoảng [from, to), dùng để nạp bộ nhớ đệm
+     */
+    public List<ScheduleSummary> getSummariesInRange(int userId, LocalDateTime from, LocalDateTime to) {
+        return findScheduleSummaries(ScheduleQuery.forUser(userId).between(from, to).build(), false);
+    }
+
+    /**
+     * Các chuỗi lặp (chưa sinh lần lặp) có lần lặp giao với khoảng [from, to)
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<ScheduleSummary> getSeriesInRange(int userId, LocalDateTime from, LocalDateTime to) {
+        try {
+            return querySeriesSummaries(ScheduleQuery.forUser(userId).between(from, to).build());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Các khoảng bận đã gộp của user trong [from, to), sắp theo thời gian và cắt theo khoảng.
+     * Lịch chồng lên hoặc nối tiếp nhau được gộp thành một khoảng; lịch dài 0 không tính.
+     *
+     * Quét một lượt theo start_time (sweep line) trên các cặp (start_time, end_time) đọc
+     * thẳng từ ResultSet, không tạo Schedule:
+     * - lịch không lặp được đọc theo thứ tự của idx_schedules_busy (index phủ, không sắp xếp)
+     *   từ một ngày trước "from": mọi lịch không dài quá một ngày mà giao với khoảng đều
+     *   bắt đầu từ đó trở đi
+     * - lịch dài hơn một ngày (hiếm) được tìm theo end_time trên idx_schedules_busy_long,
+     *   nên một lịch kéo dài nhiều tuần không kéo dài đoạn quét
+     * - lịch dài và các lần lặp của chuỗi giao với khoảng được sắp riêng (ít) rồi trộn vào
+     *   lượt quét
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public List<BusyInterval> getBusyIntervals(int userId, LocalDateTime from, LocalDateTime to) {
+        long fromEpoch = DatabaseManager.toEpochSecond(from);
+        long toEpoch = DatabaseManager.toEpochSecond(to);
+        if (toEpoch <= fromEpoch) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return dbManager.executeRead(conn -> {
+                List<long[]> extra = readSeriesBusy(conn, userId, from, to);
+                PreparedStatement longRows = dbManager.prepareCached(conn, """
+                    SELECT start_time, end_time FROM schedules 
+                    WHERE user_id = ? AND recurrence IS NULL AND end_time - start_time > 86400 
+                    AND end_time > ? AND start_time < ?
+                """);
+                longRows.setInt(1, userId);
+                longRows.setLong(2, fromEpoch);
+                longRows.setLong(3, toEpoch);
+                try (ResultSet rs = longRows.executeQuery()) {
+                    while (rs.next()) {
+                        extra.add(new long[] {rs.getLong(1), rs.getLong(2)});
+                    }
+                }
+                extra.sort(Comparator.comparingLong(interval -> interval[0]));
+
+                // Lịch dài cũng có thể nằm trong đoạn quét; thêm trùng một khoảng không đổi kết quả gộp
+                BusySweep sweep = new BusySweep(fromEpoch, toEpoch);
+                int next = 0;
+                PreparedStatement rows = dbManager.prepareCached(conn, """
+                    SELECT start_time, end_time FROM schedules 
+                    WHERE user_id = ? AND recurrence IS NULL AND start_time >= ? AND start_time < ? 
+                    ORDER BY start_time
+                """);
+                rows.setInt(1, userId);
+                rows.setLong(2, fromEpoch - LONG_SCHEDULE_SECONDS);
+                rows.setLong(3, toEpoch);
+                try (ResultSet rs = rows.executeQuery()) {
+                    while (rs.next()) {
+                        long start = rs.getLong(1);
+                        for (; next < extra.size() && extra.get(next)[0] <= start; next++) {
+                            sweep.add(extra.get(next)[0], extra.get(next)[1]);
+                        }
+                        sweep.add(start, rs.getLong(2));
+                    }
+                }
+                for (; next < extra.size(); next++) {
+                    sweep.add(extra.get(next)[0], extra.get(next)[1]);
+                }
+                return sweep.finish();
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
 
+    /**
+     * (start, end) theo epoch giây của các lần lặp giao với [from, to), chưa sắp xếp.
+     * Chỉ đọc thời gian và quy tắc lặp của chuỗi (idx_schedules_series).
+     */
+    private List<long[]> readSeriesBusy(Connection conn, int userId, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        PreparedStatement pstmt = dbManager.prepareCached(conn,
+            "SELECT s.start_time, s.end_time, s.recurrence FROM schedules s WHERE s.user_id = ? "
+                + SERIES_RANGE_CONDITION);
+        pstmt.setInt(1, userId);
+        pstmt.setLong(2, DatabaseManager.toEpochSecond(to));
+        pstmt.setLong(3, DatabaseManager.toEpochSecond(from));
+
+        List<long[]> occurrences = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
-                schedules.add(mapResultSetToSchedule(rs));
+                long anchorEpoch = rs.getLong(1);
+                long duration = rs.getLong(2) - anchorEpoch;
+                LocalDateTime anchor = DatabaseManager.fromEpochSecond(anchorEpoch);
+                Recurrence recurrence = Recurrence.parse(rs.getString(3));
+                // Lần lặp bắt đầu trước "from" nhưng chưa kết thúc cũng bận
+                for (LocalDateTime start : recurrence.startsBetween(anchor, from.minusSeconds(duration), to,
+                                                                    Integer.MAX_VALUE)) {
+                    long startEpoch = DatabaseManager.toEpochSecond(start);
+                    occurrences.add(new long[] {startEpoch, startEpoch + duration});
+                }
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Gộp các khoảng (epoch giây) được thêm vào theo thứ tự start tăng dần, cắt theo [from, to)
+     */
+    private static final class BusySweep {
+        private final long from;
+        private final long to;
+        private final List<BusyInterval> merged = new ArrayList<>();
+        private long start = -1;
+        private long end = -1;
+        private boolean open;
+
+        BusySweep(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void add(long addedStart, long addedEnd) {
+            addedStart = Math.max(addedStart, from);
+            addedEnd = Math.min(addedEnd, to);
+            if (addedEnd <= addedStart) {
+                return;
+            }
+            if (open && addedStart <= end) {
+                end = Math.max(end, addedEnd);
+                return;
             }
+            close();
+            start = addedStart;
+            end = addedEnd;
+            open = true;
+        }
+
+        private void close() {
+            if (open) {
+                merged.add(new BusyInterval(DatabaseManager.fromEpochSecond(start), DatabaseManager.fromEpochSecond(end)));
+                open = false;
+            }
+        }
+
+        List<BusyInterval> finish() {
+            close();
+            return merged;
+        }
+    }
+
+    /**
+     * Lấy đầy đủ một lịch (gồm mô tả, ghi chú) của user, null nếu không tồn tại
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public Schedule getScheduleById(int scheduleId, int userId) {
+        String sql = "SELECT * FROM schedules WHERE id = ? AND user_id = ?";
 
+        try {
+            List<Schedule> schedules = querySchedules(sql, pstmt -> {
+                pstmt.setInt(1, scheduleId);
+                pstmt.setInt(2, userId);
+            });
+            return schedules.isEmpty() ? null : schedules.get(0);
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
+        return null;
+    }
+
+    private static List<Schedule> toSchedules(List<ScheduleSearchResult> results) {
+        List<Schedule> schedules = new ArrayList<>(results.size());
+        for (ScheduleSearchResult result : results) {
+            schedules.add(result.getSchedule());
+        }
         return schedules;
     }
 
+    /**
+     * Tách keyword thành các từ đã chuẩn hóa (bỏ dấu, chữ thường)
+     */
+    private static List<String> splitSearchTokens(String keyword) {
+        List<String> tokens = new ArrayList<>();
+        if (keyword == null) {
+            return tokens;
+        }
+
+        for (String token : TextNormalizer.normalize(keyword).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Chuyển các từ thành biểu thức MATCH của FTS5:
+     * mỗi từ được đặt trong dấu nháy (tránh cú pháp FTS) và thêm "*" để khớp tiền tố
+     */
+    private static String buildMatchQuery(List<String> tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (String token : tokens) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append('"').append(token).append("\"*");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Trang lịch đứng sau (startTime, id) theo thứ tự (start_time, id);
+     * startTime null nghĩa là trang đầu tiên
+     */
+    public List<Schedule> getSchedulesAfter(int userId, LocalDateTime startTime, int id, int limit) {
+        ScheduleQuery.Builder query = ScheduleQuery.forUser(userId).limit(limit);
+        if (startTime != null) {
+            query.after(startTime, id);
+        }
+        return toSchedules(findSchedules(query.build()));
+    }
+
+    /**
+     * Trang lịch đứng ngay trước (startTime, id), sắp tăng dần;
+     * startTime null nghĩa là trang cuối cùng
+     */
+    public List<Schedule> getSchedulesBefore(int userId, LocalDateTime startTime, int id, int limit) {
+        ScheduleQuery.Builder query = ScheduleQuery.forUser(userId).limit(limit);
+        query.before(startTime != null ? startTime : LocalDateTime.MAX, startTime != null ? id : Integer.MAX_VALUE);
+        return toSchedules(findSchedules(query.build()));
+    }
+
+    /**
+     * Lấy lịch theo danh mục, so khớp trên cột category_norm có index
+     */
+    public List<Schedule> getSchedulesByCategory(int userId, String category) {
+        return toSchedules(findSchedules(ScheduleQuery.forUser(userId).category(category).build()));
+    }
+
+    /**
+     * Chạy truy vấn đọc trên pool đọc (statement được cache) và map toàn bộ kết quả sang Schedule
+     */
+    private List<Schedule> querySchedules(String sql, StatementBinder binder) throws SQLException {
+        return dbManager.executeRead(conn -> {
+            PreparedStatement pstmt = dbManager.prepareCached(conn, sql);
+            binder.bind(pstmt);
+            List<Schedule> schedules = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    schedules.add(mapResultSetToSchedule(rs));
+                }
+            }
+            return schedules;
+        });
+    }
+
+    /**
+     * Gán tham số cho INSERT_SQL, gồm cả các cột *_norm dùng cho tìm kiếm không dấu.
+     * Văn bản được lưu ở dạng NFC để khớp với bản chuẩn hóa.
+     */
+    private static void bindInsert(PreparedStatement pstmt, Schedule schedule, LocalDateTime now) throws SQLException {
+        long nowEpoch = DatabaseManager.toEpochSecond(now);
+        pstmt.setInt(1, schedule.getUserId());
+        pstmt.setString(2, TextNormalizer.toNfc(schedule.getTitle()));
+        pstmt.setString(3, TextNormalizer.toNfc(schedule.getDescription()));
+        pstmt.setString(4, TextNormalizer.toNfc(schedule.getNote()));
+        pstmt.setLong(5, DatabaseManager.toEpochSecond(schedule.getStartTime()));
+        pstmt.setLong(6, DatabaseManager.toEpochSecond(schedule.getEndTime()));
+        pstmt.setInt(7, schedule.isReminder() ? 1 : 0);
+        pstmt.setInt(8, schedule.getReminderMinutes());
+        pstmt.setString(9, TextNormalizer.toNfc(schedule.getCategory()));
+        pstmt.setLong(10, nowEpoch);
+        pstmt.setLong(11, nowEpoch);
+        pstmt.setString(12, TextNormalizer.normalize(schedule.getTitle()));
+        pstmt.setString(13, TextNormalizer.normalize(schedule.getDescription()));
+        pstmt.setString(14, TextNormalizer.normalize(schedule.getNote()));
+        pstmt.setString(15, TextNormalizer.normalize(schedule.getCategory()));
+        pstmt.setObject(16, reminderAt(schedule));
+        pstmt.setString(17, schedule.getRecurrence() != null ? schedule.getRecurrence().toRule() : null);
+        pstmt.setObject(18, recurrenceEnd(schedule));
+        pstmt.setObject(19, schedule.getSeriesId() > 0 ? schedule.getSeriesId() : null);
+        pstmt.setObject(20, schedule.getSeriesId() > 0 && schedule.getOccurrenceStart() != null
+            ? DatabaseManager.toEpochSecond(schedule.getOccurrenceStart()) : null);
+    }
+
+    /**
+     * Gán tham số cho UPDATE_SQL
+     */
+    private static void bindUpdate(PreparedStatement pstmt, Schedule schedule, LocalDateTime now) throws SQLException {
+        pstmt.setString(1, TextNormalizer.toNfc(schedule.getTitle()));
+        pstmt.setString(2, TextNormalizer.toNfc(schedule.getDescription()));
+        pstmt.setString(3, TextNormalizer.toNfc(schedule.getNote()));
+        pstmt.setLong(4, DatabaseManager.toEpochSecond(schedule.getStartTime()));
+        pstmt.setLong(5, DatabaseManager.toEpochSecond(schedule.getEndTime()));
+        pstmt.setInt(6, schedule.isReminder() ? 1 : 0);
+        pstmt.setInt(7, schedule.getReminderMinutes());
+        pstmt.setString(8, TextNormalizer.toNfc(schedule.getCategory()));
+        pstmt.setLong(9, DatabaseManager.toEpochSecond(now));
+        pstmt.setString(10, TextNormalizer.normalize(schedule.getTitle()));
+        pstmt.setString(11, TextNormalizer.normalize(schedule.getDescription()));
+        pstmt.setString(12, TextNormalizer.normalize(schedule.getNote()));
+        pstmt.setString(13, TextNormalizer.normalize(schedule.getCategory()));
+        pstmt.setObject(14, reminderAt(schedule));
+        pstmt.setString(15, schedule.getRecurrence() != null ? schedule.getRecurrence().toRule() : null);
+        pstmt.setObject(16, recurrenceEnd(schedule));
+        pstmt.setInt(17, schedule.getId());
+        pstmt.setInt(18, schedule.getUserId());
+    }
+
+    /**
+     * Giá trị cột reminder_at: NULL với chuỗi lặp (nhắc nhở của chuỗi tính theo từng lần lặp)
+     */
+    private static Long reminderAt(Schedule schedule) {
+        return schedule.getRecurrence() != null ? null : DatabaseManager.toEpochSecond(schedule.getReminderTime());
+    }
+
+    private static Long recurrenceEnd(Schedule schedule) {
+        if (schedule.getRecurrence() == null) {
+            return null;
+        }
+        LocalDateTime end = schedule.getRecurrence().seriesEnd(schedule.getStartTime(), schedule.getEndTime());
+        return end != null ? DatabaseManager.toEpochSecond(end) : null;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * Map một dòng chỉ gồm các cột SUMMARY_COLUMNS sang ScheduleSummary
+     */
+    private static ScheduleSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        ScheduleSummary summary = new ScheduleSummary();
+        summary.setId(rs.getInt("id"));
+        summary.setUserId(rs.getInt("user_id"));
+        summary.setTitle(rs.getString("title"));
+        summary.setStartTime(DatabaseManager.fromEpochSecond(rs.getLong("start_time")));
+        summary.setEndTime(DatabaseManager.fromEpochSecond(rs.getLong("end_time")));
+        summary.setReminder(rs.getInt("is_reminder") == 1);
+        summary.setReminderMinutes(rs.getInt("reminder_minutes"));
+        summary.setCategory(rs.getString("category"));
+        mapRecurrence(rs, summary);
+        return summary;
+    }
+
     /**
      * Helper method để map ResultSet sang Schedule object
      */
@@ -243,13 +1668,21 @@ public class ScheduleService {
         schedule.setTitle(rs.getString("title"));
         schedule.setDescription(rs.getString("description"));
         schedule.setNote(rs.getString("note"));
-        schedule.setStartTime(DatabaseManager.parseDateTime(rs.getString("start_time")));
-        schedule.setEndTime(DatabaseManager.parseDateTime(rs.getString("end_time")));
+        schedule.setStartTime(DatabaseManager.fromEpochSecond(rs.getLong("start_time")));
+        schedule.setEndTime(DatabaseManager.fromEpochSecond(rs.getLong("end_time")));
         schedule.setReminder(rs.getInt("is_reminder") == 1);
         schedule.setReminderMinutes(rs.getInt("reminder_minutes"));
         schedule.setCategory(rs.getString("category"));
-        schedule.setCreatedAt(DatabaseManager.parseDateTime(rs.getString("created_at")));
-        schedule.setUpdatedAt(DatabaseManager.parseDateTime(rs.getString("updated_at")));
+        schedule.setCreatedAt(DatabaseManager.fromEpochSecond(rs.getLong("created_at")));
+        schedule.setUpdatedAt(DatabaseManager.fromEpochSecond(rs.getLong("updated_at")));
+        mapRecurrence(rs, schedule);
         return schedule;
     }
+
+    private static void mapRecurrence(ResultSet rs, ScheduleSummary summary) throws SQLException {
+        summary.setRecurrence(Recurrence.parse(rs.getString("recurrence")));
+        summary.setSeriesId(rs.getInt("series_id"));
+        long occurrenceStart = rs.getLong("occurrence_start");
+        summary.setOccurrenceStart(rs.wasNull() ? null : DatabaseManager.fromEpochSecond(occurrenceStart));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,367 @@
+package com.calendar.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.calendar.database.DatabaseManager;
+import com.calendar.model.Recurrence;
+import com.calendar.model.Schedule;
+import com.calendar.model.ScheduleQuery;
+import com.calendar.model.ScheduleSummary;
+import com.calendar.util.IntervalTree;
+import com.calendar.util.TextNormalizer;
+
+/**
+ * Bản sao trong bộ nhớ các lịch của một user đang đăng nhập nằm trong một cửa sổ thời
+ * gian, để các truy vấn theo ngày/tuần/tháng không phải đọc database.
+ *
+ * - Chỉ giữ lịch giao với cửa sổ (mặc định 366 ngày quanh ngày đang xem, cấu hình qua
+ *   calendar.store.windowDays), nên bộ nhớ không tăng theo số năm lịch sử của user.
+ *   Database được đọc khi nạp cửa sổ; truy vấn của màn hình ra ngoài cửa sổ làm cửa sổ
+ *   dời tới quanh khoảng đó và nạp lại một lần. Kiểm tra trùng lịch ngoài cửa sổ đọc thẳng
+ *   database theo khoảng nhỏ cần kiểm tra và không dời cửa sổ.
+ * - Mỗi user nạp dưới lock riêng của store, nên lần nạp đầu của một user không chặn
+ *   forUser/release của user khác.
+ * - Sau khi nạp, store được cập nhật ghi-xuyên (write-through) qua ScheduleChangeListener
+ *   mỗi khi ScheduleService ghi thành công.
+ * - Index là IntervalTree cho toàn bộ lịch và một IntervalTree cho từng danh mục
+ *   (category_norm); truy vấn khoảng thời gian và kiểm tra trùng lịch chỉ đi qua các
+ *   nhánh có thể giao với khoảng cần tìm, kể cả khi có lịch kéo dài rất lâu.
+ * - Chuỗi lặp được giữ nguyên dạng chuỗi (không sinh sẵn lần lặp); mỗi truy vấn chỉ sinh
+ *   lần lặp của các chuỗi cho đúng khoảng được hỏi rồi gộp với kết quả từ IntervalTree.
+ * - Truy vấn không giới hạn thời gian dùng SchedulePager, tìm theo từ khóa dùng FTS
+ *   trong database (findSchedules của ScheduleService).
+ *
+ * Store chỉ giữ ScheduleSummary (không có mô tả/ghi chú); chi tiết lấy bằng
+ * ScheduleService.getScheduleById khi cần. Đối tượng trả về dùng chung giữa các lần
+ * truy vấn nên người gọi không được sửa trực tiếp.
+ */
+public class ScheduleStore implements ScheduleChangeListener {
+    private static final long WINDOW_SECONDS = Integer.getInteger("calendar.store.windowDays", 366) * 86_400L;
+
+    private static final Map<Integer, ScheduleStore> stores = new ConcurrentHashMap<>();
+
+    private static final Comparator<ScheduleSummary> START_ORDER =
+        Comparator.comparing(ScheduleSummary::getStartTime).thenComparingInt(ScheduleSummary::getId);
+
+    private final int userId;
+    private final ScheduleService scheduleService;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final IntervalTree<ScheduleSummary> all = new IntervalTree<>();
+    private final Map<String, IntervalTree<ScheduleSummary>> byCategory = new HashMap<>();
+    // Chuỗi lặp có lần lặp giao với cửa sổ, theo id
+    private final Map<Integer, ScheduleSummary> series = new HashMap<>();
+    // Cửa sổ [windowFrom, windowTo) đang nạp, epoch giây
+    private long windowFrom;
+    private long windowTo;
+    private volatile boolean loaded;
+
+    private ScheduleStore(int userId, ScheduleService scheduleService) {
+        this.userId = userId;
+        this.scheduleService = scheduleService;
+    }
+
+    /**
+     * Lấy store của user; lần gọi đầu tiên trong phiên nạp cửa sổ quanh ngày hiện tại
+     */
+    public static ScheduleStore forUser(int userId) {
+        ScheduleStore store = stores.computeIfAbsent(userId, id -> {
+            ScheduleStore created = new ScheduleStore(id, new ScheduleService());
+            ScheduleService.addChangeListener(created);
+            return created;
+        });
+        if (!store.loaded) {
+            store.loadInitialWindow();
+        }
+        return store;
+    }
+
+    /**
+     * Nạp cửa sổ quanh ngày hiện tại dưới write lock của store; các lần gọi đồng thời
+     * cho cùng user chờ lần nạp đầu tiên rồi dùng chung kết quả
+     */
+    private void loadInitialWindow() {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                long now = DatabaseManager.toEpochSecond(LocalDateTime.now());
+                loadWindow(now, now);
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gỡ store của user khỏi bộ nhớ (gọi khi đăng xuất)
+     */
+    public static void release(int userId) {
+        ScheduleStore store = stores.remove(userId);
+        if (store != null) {
+            ScheduleService.removeChangeListener(store);
+        }
+    }
+
+    /**
+     * Nạp lại cửa sổ có tâm là giữa [from, to); phải giữ write lock.
+     * Listener đã được đăng ký trước khi đọc: thay đổi commit trước lúc đọc đã có trong
+     * kết quả, thay đổi đến trong lúc đọc chờ lock rồi được áp dụng sau (thêm/sửa theo id
+     * và xóa đều lặp lại được nên áp dụng hai lần không sao)
+     */
+    private void loadWindow(long from, long to) {
+        long center = from + (to - from) / 2;
+        windowFrom = center - WINDOW_SECONDS / 2;
+        windowTo = windowFrom + WINDOW_SECONDS;
+
+        all.clear();
+        byCategory.clear();
+        series.clear();
+
+        long start = System.nanoTime();
+        LocalDateTime windowStart = DatabaseManager.fromEpochSecond(windowFrom);
+        LocalDateTime windowEnd = DatabaseManager.fromEpochSecond(windowTo);
+        List<ScheduleSummary> summaries = scheduleService.getSummariesInRange(userId, windowStart, windowEnd);
+        for (ScheduleSummary summary : summaries) {
+            put(summary);
+        }
+        for (ScheduleSummary summary : scheduleService.getSeriesInRange(userId, windowStart, windowEnd)) {
+            series.put(summary.getId(), summary);
+        }
+        System.out.println("Đã nạp " + summaries.size() + " lịch và " + series.size() + " chuỗi lặp của user "
+            + userId + " vào bộ nhớ ("
+            + windowStart.toLocalDate() + " → " + windowEnd.toLocalDate() + ", "
+            + (System.nanoTime() - start) / 1_000_000 + "ms)");
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.size() + series.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ScheduleSummary getById(int scheduleId) {
+        lock.readLock().lock();
+        try {
+            ScheduleSummary summary = all.get(scheduleId);
+            return summary != null ? summary : series.get(scheduleId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lịch theo ngày (gồm cả lịch kéo dài qua ngày đó)
+     */
+    public List<ScheduleSummary> getByDate(LocalDate date) {
+        return getInRange(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Lịch giao với khoảng [from, to), cùng điều kiện với ScheduleService.findSchedules
+     */
+    public List<ScheduleSummary> getInRange(LocalDateTime from, LocalDateTime to) {
+        return find(ScheduleQuery.forUser(userId).between(from, to).build());
+    }
+
+    /**
+     * Thực hiện truy vấn có khoảng thời gian, không có từ khóa và con trỏ, kết quả sắp theo
+     * (thời gian bắt đầu, id). Khoảng nằm ngoài cửa sổ thì cửa sổ được nạp lại quanh khoảng
+     * đó; khoảng dài hơn cả cửa sổ được đọc thẳng từ database.
+     */
+    public List<ScheduleSummary> find(ScheduleQuery query) {
+        if (query.hasKeyword() || !query.hasRange() || query.getAfter() != null || query.getBefore() != null) {
+            throw new IllegalArgumentException("ScheduleStore chỉ hỗ trợ truy vấn theo khoảng thời gian: " + query);
+        }
+        if (query.getUserId() != userId) {
+            throw new IllegalArgumentException("Truy vấn của user " + query.getUserId()
+                + " không thuộc store của user " + userId);
+        }
+
+        long from = DatabaseManager.toEpochSecond(query.getRangeStart());
+        long to = DatabaseManager.toEpochSecond(query.getRangeEnd());
+        if (to - from > WINDOW_SECONDS) {
+            return scheduleService.findScheduleSummaries(query);
+        }
+
+        lock.readLock().lock();
+        try {
+            if (covers(from, to)) {
+                return findInWindow(query);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!covers(from, to)) {
+                loadWindow(from, to);
+            }
+            return findInWindow(query);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Như find nhưng khoảng ngoài cửa sổ được đọc thẳng từ database (truy vấn theo đúng
+     * khoảng đó) thay vì nạp lại cửa sổ, để kiểm tra một ngày xa không đẩy cửa sổ khỏi
+     * vùng màn hình chính đang xem
+     */
+    private List<ScheduleSummary> findWithoutMovingWindow(ScheduleQuery query) {
+        long from = DatabaseManager.toEpochSecond(query.getRangeStart());
+        long to = DatabaseManager.toEpochSecond(query.getRangeEnd());
+        lock.readLock().lock();
+        try {
+            if (covers(from, to)) {
+                return findInWindow(query);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scheduleService.findScheduleSummaries(query);
+    }
+
+    private boolean covers(long from, long to) {
+        return from >= windowFrom && to <= windowTo;
+    }
+
+    // Phải giữ read lock hoặc write lock
+    private List<ScheduleSummary> findInWindow(ScheduleQuery query) {
+        String categoryNorm = query.hasCategory() ? TextNormalizer.normalize(query.getCategory()) : null;
+        IntervalTree<ScheduleSummary> index = categoryNorm != null ? byCategory.get(categoryNorm) : all;
+        int limit = query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit();
+
+        List<ScheduleSummary> results = index == null ? new ArrayList<>() : index.findOverlapping(
+            DatabaseManager.toEpochSecond(query.getRangeStart()),
+            DatabaseManager.toEpochSecond(query.getRangeEnd()),
+            summary -> !query.isReminderOnly() || summary.isReminder(),
+            limit);
+
+        List<ScheduleSummary> occurrences = new ArrayList<>();
+        for (ScheduleSummary summary : series.values()) {
+            if ((categoryNorm == null || categoryNorm.equals(TextNormalizer.normalize(summary.getCategory())))
+                    && (!query.isReminderOnly() || summary.isReminder())) {
+                occurrences.addAll(Recurrence.expand(summary, query.getRangeStart(), query.getRangeEnd()));
+            }
+        }
+        if (occurrences.isEmpty()) {
+            return results;
+        }
+        results.addAll(occurrences);
+        results.sort(START_ORDER);
+        return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+    }
+
+    /**
+     * Các lịch trùng thời gian với khoảng [start, end) (lịch đang sửa excludeId được bỏ qua,
+     * với chuỗi lặp là mọi lần lặp của nó), sắp theo thời gian bắt đầu. Lịch dài 0 được coi
+     * như kéo dài một giây để vẫn phát hiện được lịch khác đang diễn ra hoặc bắt đầu đúng lúc đó.
+     */
+    public List<ScheduleSummary> findConflicts(LocalDateTime start, LocalDateTime end, int excludeId) {
+        return findConflicts(start, end, excludeId, null);
+    }
+
+    /**
+     * Như findConflicts(start, end, excludeId) nhưng khi excludeOccurrence khác null chỉ bỏ qua
+     * lần lặp bắt đầu lúc đó của chuỗi excludeId (đang sửa một lần lặp), các lần lặp khác
+     * của cùng chuỗi vẫn được báo trùng.
+     */
+    public List<ScheduleSummary> findConflicts(LocalDateTime start, LocalDateTime end, int excludeId,
+                                               LocalDateTime excludeOccurrence) {
+        LocalDateTime until = end.isAfter(start) ? end : start.plusSeconds(1);
+        List<ScheduleSummary> conflicts = new ArrayList<>();
+        for (ScheduleSummary summary : findWithoutMovingWindow(ScheduleQuery.forUser(userId).between(start, until).build())) {
+            boolean excluded = summary.getId() == excludeId
+                && (excludeOccurrence == null || excludeOccurrence.equals(summary.getOccurrenceStart()));
+            if (!excluded) {
+                conflicts.add(summary);
+            }
+        }
+        return conflicts;
+    }
+
+    @Override
+    public void onScheduleAdded(Schedule schedule) {
+        if (schedule.getUserId() != userId) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (schedule.getRecurrence() != null) {
+                remove(schedule.getId());
+                LocalDateTime seriesEnd = schedule.getRecurrence().seriesEnd(schedule.getStartTime(), schedule.getEndTime());
+                if (DatabaseManager.toEpochSecond(schedule.getStartTime()) < windowTo
+                        && (seriesEnd == null || DatabaseManager.toEpochSecond(seriesEnd) >= windowFrom)) {
+                    series.put(schedule.getId(), new ScheduleSummary(schedule));
+                }
+            } else if (DatabaseManager.toEpochSecond(schedule.getStartTime()) < windowTo
+                    && DatabaseManager.toEpochSecond(schedule.getEndTime()) >= windowFrom) {
+                put(new ScheduleSummary(schedule));
+            } else {
+                // Lịch nằm ngoài cửa sổ (hoặc vừa bị dời ra ngoài) không được giữ trong bộ nhớ
+                remove(schedule.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onScheduleUpdated(Schedule schedule) {
+        onScheduleAdded(schedule);
+    }
+
+    @Override
+    public void onScheduleDeleted(int userId, int scheduleId) {
+        if (userId != this.userId) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(scheduleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Hai hàm dưới đây phải được gọi khi đang giữ write lock
+    private void put(ScheduleSummary summary) {
+        remove(summary.getId());
+
+        long startEpoch = DatabaseManager.toEpochSecond(summary.getStartTime());
+        long endEpoch = DatabaseManager.toEpochSecond(summary.getEndTime());
+        all.put(summary.getId(), startEpoch, endEpoch, summary);
+        byCategory.computeIfAbsent(TextNormalizer.normalize(summary.getCategory()), k -> new IntervalTree<>())
+                  .put(summary.getId(), startEpoch, endEpoch, summary);
+    }
+
+    private void remove(int scheduleId) {
+        series.remove(scheduleId);
+        ScheduleSummary summary = all.remove(scheduleId);
+        if (summary == null) {
+            return;
+        }
+        // Summary trong store không bao giờ bị sửa nên danh mục cũ vẫn đúng
+        String categoryNorm = TextNormalizer.normalize(summary.getCategory());
+        IntervalTree<ScheduleSummary> bucket = byCategory.get(categoryNorm);
+        if (bucket != null) {
+            bucket.remove(scheduleId);
+            if (bucket.size() == 0) {
+                byCategory.remove(categoryNorm);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.calendar.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pipeline tìm kiếm "gõ đến đâu tìm đến đó": gộp các yêu cầu liên tiếp (debounce),
+ * hủy truy vấn đã lỗi thời và chỉ giao kết quả của yêu cầu mới nhất.
+ *
+ * - submit(): chờ hết khoảng debounce mà không có yêu cầu mới thì mới chạy
+ * - submitNow(): chạy ngay (vẫn hủy yêu cầu cũ), dùng cho thao tác chọn ngày/danh mục
+ *
+ * Kết quả được giao qua callbackExecutor (ví dụ Platform::runLater); trước khi gọi
+ * onResult pipeline kiểm tra lại để kết quả cũ không bao giờ ghi đè kết quả mới.
+ */
+public class SearchPipeline<Q, R> {
+    private static final ScheduledExecutorService DEBOUNCER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-debounce");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long debounceMillis;
+    private final Function<Q, CompletableFuture<R>> runner;
+    private final Executor callbackExecutor;
+    private final Consumer<R> onResult;
+    private final Consumer<Throwable> onError;
+
+    private long generation;
+    private ScheduledFuture<?> pendingDebounce;
+    private CompletableFuture<R> inFlight;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+
+    public SearchPipeline(long debounceMillis,
+                          Function<Q, CompletableFuture<R>> runner,
+                          Executor callbackExecutor,
+                          Consumer<R> onResult,
+                          Consumer<Throwable> onError) {
+        this.debounceMillis = debounceMillis;
+        this.runner = runner;
+        this.callbackExecutor = callbackExecutor;
+        this.onResult = onResult;
+        this.onError = onError;
+    }
+
+    /**
+     * Gửi yêu cầu có debounce: yêu cầu đang chờ trước đó bị gộp vào yêu cầu này
+     */
+    public synchronized void submit(Q query) {
+        submitted.incrementAndGet();
+        long current = supersede(coalesced);
+        pendingDebounce = DEBOUNCER.schedule(() -> execute(query, current), debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gửi yêu cầu chạy ngay, bỏ qua debounce
+     */
+    public synchronized void submitNow(Q query) {
+        submitted.incrementAndGet();
+        long current = supersede(coalesced);
+        execute(query, current);
+    }
+
+    /**
+     * Hủy mọi yêu cầu đang chờ và đang chạy
+     */
+    public synchronized void cancel() {
+        supersede(cancelled);
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(submitted.get(), coalesced.get(), executed.get(), cancelled.get(), delivered.get());
+    }
+
+    /**
+     * Đánh dấu mọi yêu cầu trước đó là lỗi thời, trả về số thứ tự của yêu cầu mới.
+     * Yêu cầu đang chờ debounce bị bỏ được đếm vào droppedPending: gộp khi có yêu cầu mới,
+     * hủy khi gọi cancel().
+     */
+    private long supersede(AtomicLong droppedPending) {
+        // Tăng trước khi hủy: callback của future bị hủy phải thấy nó đã lỗi thời
+        long next = ++generation;
+
+        if (pendingDebounce != null && pendingDebounce.cancel(false)) {
+            droppedPending.incrementAndGet();
+        }
+        pendingDebounce = null;
+
+        if (inFlight != null && inFlight.cancel(false)) {
+            cancelled.incrementAndGet();
+        }
+        inFlight = null;
+
+        return next;
+    }
+
+    private synchronized void execute(Q query, long queryGeneration) {
+        if (queryGeneration != generation) {
+            return;
+        }
+        pendingDebounce = null;
+        executed.incrementAndGet();
+
+        CompletableFuture<R> future = runner.apply(query);
+        inFlight = future;
+        future.whenComplete((result, error) -> callbackExecutor.execute(() -> deliver(queryGeneration, result, error)));
+    }
+
+    private void deliver(long queryGeneration, R result, Throwable error) {
+        synchronized (this) {
+            if (queryGeneration != generation) {
+                return; // Đã có yêu cầu mới hơn, bỏ kết quả này
+            }
+            inFlight = null;
+        }
+
+        if (error != null) {
+            onError.accept(error);
+        } else {
+            delivered.incrementAndGet();
+            onResult.accept(result);
+        }
+    }
+
+    /**
+     * Số liệu để tinh chỉnh khoảng debounce
+     */
+    public record Metrics(long submitted, long coalesced, long executed, long cancelled, long delivered) {
+        @Override
+        public String toString() {
+            return "yêu cầu=" + submitted + ", gộp=" + coalesced + ", đã chạy=" + executed
+                + ", đã hủy=" + cancelled + ", đã hiển thị=" + delivered;
+        }
+    }
+}
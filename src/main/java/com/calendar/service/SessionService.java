@@ -0,0 +1,205 @@
+package com.calendar.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import com.calendar.database.DatabaseManager;
+
+/**
+ * Phiên "ghi nhớ thiết bị": sau khi đăng nhập, một token ngẫu nhiên 256 bit được ghi vào
+ * file cục bộ (calendar.session.file, mặc định session.token) và chỉ SHA-256 của nó được
+ * lưu trong bảng sessions cùng thời hạn (calendar.session.days, mặc định 30 ngày).
+ *
+ * Khi khởi động, token được kiểm tra bằng một lần băm SHA-256 và một lần tra index
+ * (vài micro giây) thay vì BCrypt, nên ứng dụng vào thẳng màn hình chính.
+ * Đăng xuất hoặc đổi mật khẩu sẽ thu hồi phiên.
+ */
+public class SessionService {
+    private static final Path TOKEN_FILE = Path.of(System.getProperty("calendar.session.file", "session.token"));
+    private static final long SESSION_DAYS = Long.getLong("calendar.session.days", 30);
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final DatabaseManager dbManager;
+
+    public SessionService() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Tạo phiên mới cho user và lưu token vào file trên máy này
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public boolean createSession(int userId) {
+        // Mỗi máy chỉ giữ một phiên: thu hồi token cũ (nếu có) trước khi ghi đè file
+        revokeCurrentSession();
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        String sql = "INSERT INTO sessions (user_id, token_hash, created_at, expires_at) VALUES (?, ?, ?, ?)";
+
+        try {
+            // Ghi file trước: nếu không ghi được thì không để lại dòng phiên mồ côi trong database
+            writeTokenFile(token);
+            dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setString(2, digest(token));
+                    pstmt.setLong(3, DatabaseManager.toEpochSecond(now));
+                    pstmt.setLong(4, DatabaseManager.toEpochSecond(now.plusDays(SESSION_DAYS)));
+                    return pstmt.executeUpdate();
+                }
+            });
+            System.out.println("Đã ghi nhớ thiết bị cho user ID: " + userId);
+            return true;
+
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            deleteTokenFile();
+            return false;
+        }
+    }
+
+    /**
+     * Kiểm tra token đã lưu trên máy; trả về user ID nếu phiên còn hiệu lực, ngược lại null.
+     * Phiên hết hạn bị xóa cùng file token.
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public Integer resumeSession() {
+        String token = readTokenFile();
+        if (token == null) {
+            return null;
+        }
+
+        String tokenHash = digest(token);
+        String sql = "SELECT user_id, expires_at FROM sessions WHERE token_hash = ?";
+
+        try {
+            long[] session = dbManager.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, tokenHash);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? new long[] {rs.getInt("user_id"), rs.getLong("expires_at")} : null;
+                    }
+                }
+            });
+
+            if (session != null && session[1] > DatabaseManager.toEpochSecond(LocalDateTime.now())) {
+                System.out.println("Khôi phục phiên đăng nhập cho user ID: " + session[0]);
+                return (int) session[0];
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        // Token không hợp lệ, đã bị thu hồi hoặc hết hạn
+        revokeCurrentSession();
+        return null;
+    }
+
+    /**
+     * Thu hồi phiên của máy này (khi đăng xuất)
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public void revokeCurrentSession() {
+        String token = readTokenFile();
+        if (token == null) {
+            return;
+        }
+
+        String sql = "DELETE FROM sessions WHERE token_hash = ? OR expires_at <= ?";
+        try {
+            dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, digest(token));
+                    pstmt.setLong(2, DatabaseManager.toEpochSecond(LocalDateTime.now()));
+                    return pstmt.executeUpdate();
+                }
+            });
+            Files.deleteIfExists(TOKEN_FILE);
+
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Thu hồi mọi phiên của user trên mọi thiết bị (khi đổi mật khẩu)
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public int revokeAllSessions(int userId) {
+        String sql = "DELETE FROM sessions WHERE user_id = ?";
+        try {
+            return dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, userId);
+                    return pstmt.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM không hỗ trợ SHA-256", e);
+        }
+    }
+
+    private static String readTokenFile() {
+        try {
+            if (!Files.isRegularFile(TOKEN_FILE)) {
+                return null;
+            }
+            String token = Files.readString(TOKEN_FILE, StandardCharsets.US_ASCII).trim();
+            return token.isEmpty() ? null : token;
+        } catch (IOException e) {
+            System.err.println("Không đọc được file phiên: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Ghi token vào file, chỉ chủ sở hữu được đọc/ghi (trên hệ thống hỗ trợ POSIX).
+     * Quyền được đặt ngay khi tạo file nên không có lúc nào file đọc được bởi người khác.
+     */
+    private static void writeTokenFile(String token) throws IOException {
+        Files.deleteIfExists(TOKEN_FILE);
+        try {
+            Files.createFile(TOKEN_FILE, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            // Windows: dựa vào quyền thư mục của người dùng
+            Files.createFile(TOKEN_FILE);
+        }
+        Files.writeString(TOKEN_FILE, token, StandardCharsets.US_ASCII);
+    }
+
+    private static void deleteTokenFile() {
+        try {
+            Files.deleteIfExists(TOKEN_FILE);
+        } catch (IOException e) {
+            System.err.println("Không xóa được file phiên: " + e.getMessage());
+        }
+    }
+}
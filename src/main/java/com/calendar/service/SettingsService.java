@@ -0,0 +1,66 @@
+package com.calendar.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.calendar.database.DatabaseManager;
+
+/**
+ * Đọc/ghi cấu hình key/value lưu trong bảng app_settings
+ */
+public class SettingsService {
+    private final DatabaseManager dbManager;
+
+    public SettingsService() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Lấy giá trị cấu hình, hoặc null nếu chưa có
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public String getSetting(String key) {
+        String sql = "SELECT value FROM app_settings WHERE key = ?";
+
+        try {
+            return dbManager.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, key);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? rs.getString("value") : null;
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Ghi (hoặc ghi đè) giá trị cấu hình
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    public boolean putSetting(String key, String value) {
+        String sql = """
+            INSERT INTO app_settings (key, value) VALUES (?, ?) 
+            ON CONFLICT(key) DO UPDATE SET value = excluded.value
+        """;
+
+        try {
+            dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, key);
+                    pstmt.setString(2, value);
+                    return pstmt.executeUpdate();
+                }
+            });
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -5,8 +5,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 
-import org.mindrot.jbcrypt.BCrypt;
-
 import com.calendar.database.DatabaseManager;
 import com.calendar.model.User;
 
@@ -28,17 +26,20 @@ public class UserService {
             return false;
         }
 
-        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+        String hashedPassword = PasswordHasher.hash(password);
 
         String sql = "INSERT INTO users (username, password, email, created_at) VALUES (?, ?, ?, ?)";
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, username.trim());
-            pstmt.setString(2, hashedPassword);
-            pstmt.setString(3, email.trim());
-            pstmt.setString(4, DatabaseManager.formatDateTime(LocalDateTime.now()));
-
-            pstmt.executeUpdate();
+        try {
+            dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, username.trim());
+                    pstmt.setString(2, hashedPassword);
+                    pstmt.setString(3, email.trim());
+                    pstmt.setString(4, DatabaseManager.formatDateTime(LocalDateTime.now()));
+                    return pstmt.executeUpdate();
+                }
+            });
             System.out.println("Đăng ký thành công: " + username);
             return true;
 
@@ -53,9 +54,9 @@ public class UserService {
     }
 
     /**
-     * Đăng nhập
+     * Đăng nhập; trả về null nếu sai tên đăng nhập hoặc mật khẩu,
+     * ném IllegalStateException nếu không đọc được database
      */
-    @SuppressWarnings("CallToPrintStackTrace")
     public User login(String username, String password) {
         if (username == null || password == null) {
             return null;
@@ -63,34 +64,62 @@ public class UserService {
 
         String sql = "SELECT * FROM users WHERE username = ?";
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, username.trim());
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                String storedHash = rs.getString("password");
-                
-                // Kiểm tra mật khẩu
-                if (BCrypt.checkpw(password, storedHash)) {
-                    User user = new User();
-                    user.setId(rs.getInt("id"));
-                    user.setUsername(rs.getString("username"));
-                    user.setEmail(rs.getString("email"));
-                    user.setCreatedAt(DatabaseManager.parseDateTime(rs.getString("created_at")));
-                    
-                    System.out.println("Đăng nhập thành công: " + username);
-                    return user;
+        try {
+            User candidate = dbManager.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, username.trim());
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? mapResultSetToUser(rs, true) : null;
+                    }
                 }
+            });
+
+            // Kiểm tra mật khẩu (ngoài connection để không giữ connection trong lúc BCrypt chạy)
+            if (candidate != null && PasswordHasher.verify(password, candidate.getPassword())) {
+                if (PasswordHasher.needsRehash(candidate.getPassword())) {
+                    rehashPassword(candidate.getId(), candidate.getPassword(), password);
+                }
+                candidate.setPassword(null);
+                System.out.println("Đăng nhập thành công: " + username);
+                return candidate;
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            // Không trả về null: lỗi database không được hiển thị thành "sai mật khẩu"
+            throw new IllegalStateException("Lỗi database khi đăng nhập: " + e.getMessage(), e);
         }
 
         System.out.println("Đăng nhập thất bại: Sai tên đăng nhập hoặc mật khẩu");
         return null;
     }
 
+    /**
+     * Băm lại mật khẩu với work factor hiện tại sau khi đăng nhập thành công.
+     * Chỉ ghi nếu hash trong database chưa bị đổi trong lúc đó (ví dụ đổi mật khẩu).
+     */
+    @SuppressWarnings("CallToPrintStackTrace")
+    private void rehashPassword(int userId, String oldHash, String password) {
+        String newHash = PasswordHasher.hash(password);
+        String sql = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+
+        try {
+            int rowsAffected = dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, newHash);
+                    pstmt.setInt(2, userId);
+                    pstmt.setString(3, oldHash);
+                    return pstmt.executeUpdate();
+                }
+            });
+            if (rowsAffected > 0) {
+                System.out.println("Đã nâng cấp hash mật khẩu lên cost " + PasswordHasher.getWorkFactor()
+                    + " cho user ID: " + userId);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Lấy thông tin người dùng theo ID
      */
@@ -98,18 +127,15 @@ public class UserService {
     public User getUserById(int userId) {
         String sql = "SELECT * FROM users WHERE id = ?";
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                User user = new User();
-                user.setId(rs.getInt("id"));
-                user.setUsername(rs.getString("username"));
-                user.setEmail(rs.getString("email"));
-                user.setCreatedAt(DatabaseManager.parseDateTime(rs.getString("created_at")));
-                return user;
-            }
+        try {
+            return dbManager.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, userId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? mapResultSetToUser(rs, false) : null;
+                    }
+                }
+            });
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -125,11 +151,14 @@ public class UserService {
     public boolean updateUser(int userId, String email) {
         String sql = "UPDATE users SET email = ? WHERE id = ?";
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, email);
-            pstmt.setInt(2, userId);
-
-            int rowsAffected = pstmt.executeUpdate();
+        try {
+            int rowsAffected = dbManager.executeWrite(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, email);
+                    pstmt.setInt(2, userId);
+                    return pstmt.executeUpdate();
+                }
+            });
             return rowsAffected > 0;
 
         } catch (SQLException e) {
@@ -150,29 +179,39 @@ public class UserService {
 
         // Lấy mật khẩu hiện tại
         String sql = "SELECT password FROM users WHERE id = ?";
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
+        try {
+            String storedHash = dbManager.executeRead(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, userId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? rs.getString("password") : null;
+                    }
+                }
+            });
 
-            if (rs.next()) {
-                String storedHash = rs.getString("password");
-                
+            if (storedHash != null) {
                 // Kiểm tra mật khẩu cũ
-                if (!BCrypt.checkpw(oldPassword, storedHash)) {
+                if (!PasswordHasher.verify(oldPassword, storedHash)) {
                     System.out.println("Mật khẩu cũ không đúng");
                     return false;
                 }
 
                 // Cập nhật mật khẩu mới
                 String updateSql = "UPDATE users SET password = ? WHERE id = ?";
-                try (PreparedStatement updateStmt = dbManager.getConnection().prepareStatement(updateSql)) {
-                    String newHash = BCrypt.hashpw(newPassword, BCrypt.gensalt());
-                    updateStmt.setString(1, newHash);
-                    updateStmt.setInt(2, userId);
-                    
-                    int rowsAffected = updateStmt.executeUpdate();
-                    return rowsAffected > 0;
+                String newHash = PasswordHasher.hash(newPassword);
+                int rowsAffected = dbManager.executeWrite(conn -> {
+                    try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                        updateStmt.setString(1, newHash);
+                        updateStmt.setInt(2, userId);
+                        return updateStmt.executeUpdate();
+                    }
+                });
+                if (rowsAffected > 0) {
+                    // Mật khẩu đổi thì các thiết bị đã ghi nhớ phải đăng nhập lại
+                    new SessionService().revokeAllSessions(userId);
+                    return true;
                 }
+                return false;
             }
 
         } catch (SQLException e) {
@@ -181,4 +220,19 @@ public class UserService {
 
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Helper method để map ResultSet sang User object
+     */
+    private User mapResultSetToUser(ResultSet rs, boolean includePassword) throws SQLException {
+        User user = new User();
+        user.setId(rs.getInt("id"));
+        user.setUsername(rs.getString("username"));
+        user.setEmail(rs.getString("email"));
+        user.setCreatedAt(DatabaseManager.parseDateTime(rs.getString("created_at")));
+        if (includePassword) {
+            user.setPassword(rs.getString("password"));
+        }
+        return user;
+    }
+}
@@ -0,0 +1,30 @@
+package com.calendar.service.sink;
+
+import com.calendar.model.Schedule;
+import com.calendar.service.NotificationPresenter;
+
+/**
+ * Hiển thị nhắc nhở bằng toast của NotificationPresenter
+ */
+public class DesktopReminderSink implements ReminderSink {
+    private final NotificationPresenter presenter;
+
+    public DesktopReminderSink(NotificationPresenter presenter) {
+        this.presenter = presenter;
+    }
+
+    @Override
+    public String getName() {
+        return "desktop";
+    }
+
+    @Override
+    public void deliver(Schedule schedule) {
+        presenter.enqueue(schedule);
+    }
+
+    @Override
+    public void close() {
+        presenter.dismiss();
+    }
+}
@@ -0,0 +1,52 @@
+package com.calendar.service.sink;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import com.calendar.model.Schedule;
+
+/**
+ * Ghi mỗi nhắc nhở thành một dòng vào file log (chỉ ghi thêm vào cuối file).
+ * Định dạng: thời điểm phát | user_id | schedule_id | thời điểm nhắc | tiêu đề
+ */
+public class LogFileReminderSink implements ReminderSink {
+    private final Path file;
+    private BufferedWriter writer; // chỉ dùng trên worker thread của sink
+
+    public LogFileReminderSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return "log-file";
+    }
+
+    @Override
+    public void deliver(Schedule schedule) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        }
+        writer.write(LocalDateTime.now().withNano(0) + " | " + schedule.getUserId() + " | " + schedule.getId()
+            + " | " + schedule.getReminderTime() + " | " + schedule.getTitle().replace('\n', ' '));
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Không thể đóng file log nhắc nhở: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.calendar.service.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.calendar.model.Schedule;
+
+/**
+ * Phân phối nhắc nhở tới các ReminderSink một cách bất đồng bộ.
+ *
+ * Mỗi sink có hàng đợi giới hạn và worker thread riêng: dispatch() chỉ đưa nhắc nhở
+ * vào hàng đợi (không bao giờ chặn), nên sink chậm không làm trễ thread của bộ máy
+ * nhắc nhở hay các sink khác. Hàng đợi đầy thì nhắc nhở bị bỏ và được đếm.
+ * Chỉ worker dùng sink của nó, kể cả close() khi dừng.
+ * Kích thước hàng đợi cấu hình qua calendar.reminder.sinkQueueSize.
+ */
+public class ReminderDispatcher {
+    private static final int QUEUE_SIZE = Integer.getInteger("calendar.reminder.sinkQueueSize", 1000);
+
+    private final List<SinkWorker> workers = new ArrayList<>();
+
+    /**
+     * Thống kê của một sink; độ trễ tính từ lúc đưa vào hàng đợi đến khi sink xử lý xong
+     */
+    public record SinkStats(String name, long delivered, long failed, long dropped,
+                            long averageLatencyMillis, long maxLatencyMillis) {
+        @Override
+        public String toString() {
+            return name + ": đã gửi " + delivered + ", lỗi " + failed + ", bỏ " + dropped
+                + ", trễ TB " + averageLatencyMillis + "ms, tối đa " + maxLatencyMillis + "ms";
+        }
+    }
+
+    public ReminderDispatcher(List<ReminderSink> sinks) {
+        for (ReminderSink sink : sinks) {
+            SinkWorker worker = new SinkWorker(sink);
+            workers.add(worker);
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Đưa nhắc nhở vào hàng đợi của mọi sink, trả về ngay
+     */
+    public void dispatch(Schedule schedule) {
+        long now = System.nanoTime();
+        for (SinkWorker worker : workers) {
+            if (!worker.queue.offer(new Pending(schedule, now))) {
+                worker.dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public List<SinkStats> getStats() {
+        List<SinkStats> stats = new ArrayList<>();
+        for (SinkWorker worker : workers) {
+            stats.add(worker.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Dừng các worker mà không chờ (gọi được từ FX thread): mỗi worker nhận tín hiệu dừng
+     * qua hàng đợi, xử lý nốt nhắc nhở còn lại trong thời gian chờ (quá hạn thì bỏ và đếm)
+     * rồi tự đóng sink của mình. Future hoàn tất khi mọi worker đã dừng.
+     */
+    public CompletableFuture<Void> shutdown(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<CompletableFuture<Void>> terminated = new ArrayList<>();
+        for (SinkWorker worker : workers) {
+            worker.stop(deadline);
+            terminated.add(worker.terminated);
+        }
+        return CompletableFuture.allOf(terminated.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private record Pending(Schedule schedule, long enqueuedNanos) {
+    }
+
+    // Tín hiệu dừng đặt vào hàng đợi, đứng sau mọi nhắc nhở đã nhận
+    private static final Pending STOP = new Pending(null, 0);
+
+    private static final class SinkWorker {
+        final ReminderSink sink;
+        final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        final Thread thread;
+        final CompletableFuture<Void> terminated = new CompletableFuture<>();
+        volatile boolean running = true;
+        volatile long deadlineNanos;
+
+        final AtomicLong delivered = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong totalLatencyMillis = new AtomicLong();
+        final AtomicLong maxLatencyMillis = new AtomicLong();
+
+        SinkWorker(ReminderSink sink) {
+            this.sink = sink;
+            this.thread = new Thread(this::run, "reminder-sink-" + sink.getName());
+            this.thread.setDaemon(true);
+        }
+
+        void stop(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+            running = false;
+            // Hàng đợi đầy thì worker vẫn thấy running = false khi hàng đợi cạn
+            queue.offer(STOP);
+        }
+
+        private void run() {
+            try {
+                while (true) {
+                    Pending pending;
+                    try {
+                        pending = queue.poll(200, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (pending == STOP || (pending == null && !running)) {
+                        return;
+                    }
+                    if (pending == null) {
+                        continue;
+                    }
+                    if (!running && System.nanoTime() - deadlineNanos > 0) {
+                        // Quá thời gian chờ khi dừng: bỏ phần còn lại
+                        dropped.incrementAndGet();
+                        continue;
+                    }
+
+                    try {
+                        sink.deliver(pending.schedule());
+                        delivered.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        failed.incrementAndGet();
+                        return;
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        System.err.println("Sink " + sink.getName() + " lỗi khi gửi nhắc nhở: " + e.getMessage());
+                    }
+
+                    long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.enqueuedNanos());
+                    totalLatencyMillis.addAndGet(latency);
+                    maxLatencyMillis.accumulateAndGet(latency, Math::max);
+                }
+            } finally {
+                sink.close();
+                terminated.complete(null);
+            }
+        }
+
+        SinkStats stats() {
+            long processed = delivered.get() + failed.get();
+            return new SinkStats(sink.getName(), delivered.get(), failed.get(), dropped.get(),
+                processed == 0 ? 0 : totalLatencyMillis.get() / processed, maxLatencyMillis.get());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.calendar.service.sink;
+
+import com.calendar.model.Schedule;
+
+/**
+ * Đích nhận nhắc nhở (toast trên desktop, file log, webhook...).
+ * Mỗi sink chạy trên worker thread riêng của ReminderDispatcher nên deliver
+ * được phép chậm hoặc chặn mà không ảnh hưởng bộ máy nhắc nhở hay sink khác.
+ */
+public interface ReminderSink {
+    /**
+     * Tên ngắn dùng cho tên thread và thống kê
+     */
+    String getName();
+
+    /**
+     * Gửi một nhắc nhở; ném exception nếu thất bại (được đếm vào thống kê lỗi)
+     */
+    void deliver(Schedule schedule) throws Exception;
+
+    /**
+     * Giải phóng tài nguyên khi dispatcher dừng
+     */
+    default void close() {
+    }
+}
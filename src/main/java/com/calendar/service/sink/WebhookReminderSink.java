@@ -0,0 +1,56 @@
+package com.calendar.service.sink;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import com.calendar.model.Schedule;
+import com.google.gson.JsonObject;
+
+/**
+ * Gửi nhắc nhở dạng JSON (HTTP POST) tới một webhook, ví dụ dịch vụ cục bộ.
+ * Phản hồi không phải 2xx được tính là lỗi.
+ */
+public class WebhookReminderSink implements ReminderSink {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final URI endpoint;
+    private final HttpClient client;
+
+    public WebhookReminderSink(URI endpoint) {
+        this.endpoint = endpoint;
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(TIMEOUT)
+            .build();
+    }
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public void deliver(Schedule schedule) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("scheduleId", schedule.getId());
+        body.addProperty("userId", schedule.getUserId());
+        body.addProperty("title", schedule.getTitle());
+        body.addProperty("startTime", schedule.getStartTime().toString());
+        body.addProperty("reminderAt", schedule.getReminderTime().toString());
+        body.addProperty("category", schedule.getCategory());
+
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+            .timeout(TIMEOUT)
+            .header("Content-Type", "application/json; charset=utf-8")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+            .build();
+
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook trả về HTTP " + response.statusCode());
+        }
+    }
+}
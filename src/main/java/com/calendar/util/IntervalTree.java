@@ -0,0 +1,196 @@
+package com.calendar.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Cây khoảng [start, end) gắn với id, dùng để tìm các khoảng giao nhau.
+ *
+ * Cài đặt là treap (cây nhị phân tìm kiếm cân bằng ngẫu nhiên) sắp theo (start, id),
+ * mỗi nút lưu thêm end lớn nhất của cây con. Truy vấn bỏ qua cả cây con có maxEnd
+ * nhỏ hơn "from" và mọi nút bắt đầu từ "to" trở đi, nên chỉ đi qua O(log n) nút cho mỗi
+ * kết quả thay vì quét các khoảng nằm trước "from". Kết quả trả về theo thứ tự (start, id).
+ * Thêm/xóa O(log n) kỳ vọng. Không an toàn giữa các thread: người dùng tự khóa.
+ */
+public final class IntervalTree<T> {
+
+    private static final class Node<T> {
+        final long start;
+        final long end;
+        final int id;
+        final int priority;
+        final T value;
+        Node<T> left;
+        Node<T> right;
+        long maxEnd;
+
+        Node(long start, long end, int id, int priority, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.priority = priority;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private final Map<Integer, Node<T>> nodesById = new HashMap<>();
+    private final Random random = new Random();
+    private Node<T> root;
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public T get(int id) {
+        Node<T> node = nodesById.get(id);
+        return node != null ? node.value : null;
+    }
+
+    public void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    /**
+     * Thêm hoặc thay khoảng có id này
+     */
+    public void put(int id, long start, long end, T value) {
+        remove(id);
+        Node<T> node = new Node<>(start, end, id, random.nextInt(), value);
+        root = insert(root, node);
+        nodesById.put(id, node);
+    }
+
+    public T remove(int id) {
+        Node<T> node = nodesById.remove(id);
+        if (node == null) {
+            return null;
+        }
+        root = delete(root, node);
+        return node.value;
+    }
+
+    /**
+     * Các khoảng giao với [from, to): bắt đầu trước "to" và kết thúc sau "from"
+     * (khoảng dài 0 bắt đầu đúng tại "from" cũng được tính)
+     */
+    public List<T> findOverlapping(long from, long to) {
+        return findOverlapping(from, to, value -> true, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Như findOverlapping(from, to) nhưng chỉ lấy giá trị thỏa filter, tối đa limit giá trị
+     */
+    public List<T> findOverlapping(long from, long to, Predicate<? super T> filter, int limit) {
+        List<T> results = new ArrayList<>();
+        collect(root, from, to, filter, limit, results);
+        return results;
+    }
+
+    private void collect(Node<T> node, long from, long to, Predicate<? super T> filter, int limit, List<T> results) {
+        if (node == null || node.maxEnd < from || results.size() >= limit) {
+            return;
+        }
+        collect(node.left, from, to, filter, limit, results);
+        if (node.start >= to || results.size() >= limit) {
+            // Nút này và cả cây con bên phải đều bắt đầu từ "to" trở đi
+            return;
+        }
+        boolean overlaps = node.end > from || (node.end == from && node.start >= from);
+        if (overlaps && filter.test(node.value)) {
+            results.add(node.value);
+        }
+        collect(node.right, from, to, filter, limit, results);
+    }
+
+    private static <T> int compare(Node<T> a, Node<T> b) {
+        int result = Long.compare(a.start, b.start);
+        return result != 0 ? result : Integer.compare(a.id, b.id);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> delete(Node<T> node, Node<T> removed) {
+        if (node == null) {
+            return null;
+        }
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (compare(removed, node) < 0) {
+            node.left = delete(node.left, removed);
+        } else {
+            node.right = delete(node.right, removed);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+}
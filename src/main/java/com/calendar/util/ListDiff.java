@@ -0,0 +1,160 @@
+package com.calendar.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Cập nhật một danh sách (thường là ObservableList của TableView) thành nội dung mới
+ * bằng ít thao tác chèn/xóa/thay nhất thay vì setAll.
+ *
+ * Phần tử được nhận diện theo khóa. Các phần tử giữ nguyên vị trí tương đối được chọn
+ * là dãy con tăng dài nhất (theo vị trí trong danh sách mới) và không bị đụng tới, trừ
+ * khi nội dung thay đổi thì được thay tại chỗ. Phần tử bị xóa hoặc đổi chỗ được gỡ theo
+ * từng đoạn liền nhau, phần tử mới được chèn theo từng đoạn, nên mỗi đoạn chỉ sinh một
+ * sự kiện thay đổi. Khi phần lớn danh sách khác đi, thay toàn bộ một lần rẻ hơn.
+ */
+public final class ListDiff {
+
+    /**
+     * Số thao tác đã thực hiện; reset = true nghĩa là đã thay toàn bộ danh sách
+     */
+    public record Stats(int inserted, int removed, int replaced, boolean reset) {
+        @Override
+        public String toString() {
+            return reset ? "thay toàn bộ" : "+" + inserted + " -" + removed + " ~" + replaced;
+        }
+    }
+
+    private ListDiff() {
+    }
+
+    /**
+     * Biến target thành source (cùng thứ tự), giữ lại phần tử cũ khi sameContent trả về true
+     *
+     * @param keyOf khóa duy nhất của phần tử (ví dụ id)
+     * @param sameContent phần tử cũ và mới cùng khóa có hiển thị giống nhau không
+     */
+    public static <T, K> Stats apply(List<T> target, List<? extends T> source,
+                                     Function<? super T, ? extends K> keyOf,
+                                     BiPredicate<? super T, ? super T> sameContent) {
+        Map<K, Integer> newIndex = new HashMap<>();
+        for (int i = 0; i < source.size(); i++) {
+            newIndex.put(keyOf.apply(source.get(i)), i);
+        }
+
+        // Vị trí trong danh sách mới của từng phần tử cũ, -1 nếu đã bị xóa
+        int[] positions = new int[target.size()];
+        for (int i = 0; i < target.size(); i++) {
+            Integer index = newIndex.get(keyOf.apply(target.get(i)));
+            positions[i] = index != null ? index : -1;
+        }
+
+        boolean[] stable = longestIncreasingRun(positions);
+        int stableCount = 0;
+        for (boolean keep : stable) {
+            if (keep) {
+                stableCount++;
+            }
+        }
+        if (stableCount * 2 < source.size() || (source.isEmpty() && !target.isEmpty())) {
+            int removed = target.size();
+            target.clear();
+            target.addAll(source);
+            return new Stats(source.size(), removed, 0, true);
+        }
+
+        // Gỡ phần tử không giữ lại, từ cuối lên và theo từng đoạn liền nhau
+        int removed = 0;
+        int end = target.size();
+        while (end > 0) {
+            if (stable[end - 1]) {
+                end--;
+                continue;
+            }
+            int start = end - 1;
+            while (start > 0 && !stable[start - 1]) {
+                start--;
+            }
+            target.subList(start, end).clear();
+            removed += end - start;
+            end = start;
+        }
+
+        Set<K> stableKeys = new HashSet<>();
+        for (T item : target) {
+            stableKeys.add(keyOf.apply(item));
+        }
+
+        // Lúc này target chỉ còn các phần tử giữ lại, đúng thứ tự của source
+        int inserted = 0;
+        int replaced = 0;
+        int pos = 0;
+        int j = 0;
+        while (j < source.size()) {
+            T item = source.get(j);
+            if (stableKeys.contains(keyOf.apply(item))) {
+                if (!sameContent.test(target.get(pos), item)) {
+                    target.set(pos, item);
+                    replaced++;
+                }
+                pos++;
+                j++;
+                continue;
+            }
+            List<T> run = new ArrayList<>();
+            while (j < source.size() && !stableKeys.contains(keyOf.apply(source.get(j)))) {
+                run.add(source.get(j));
+                j++;
+            }
+            target.addAll(pos, run);
+            pos += run.size();
+            inserted += run.size();
+        }
+
+        return new Stats(inserted, removed, replaced, false);
+    }
+
+    /**
+     * Đánh dấu một dãy con tăng dài nhất của positions (bỏ qua giá trị -1), O(n log n)
+     */
+    private static boolean[] longestIncreasingRun(int[] positions) {
+        int n = positions.length;
+        int[] tailIndex = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            if (positions[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions[tailIndex[mid]] < positions[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tailIndex[low - 1] : -1;
+            tailIndex[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] stable = new boolean[n];
+        int i = length > 0 ? tailIndex[length - 1] : -1;
+        while (i >= 0) {
+            stable[i] = true;
+            i = previous[i];
+        }
+        return stable;
+    }
+}
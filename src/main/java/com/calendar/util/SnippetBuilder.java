@@ -0,0 +1,92 @@
+package com.calendar.util;
+
+import java.util.List;
+
+/**
+ * Tạo đoạn trích có đánh dấu [từ khớp] trên văn bản gốc (còn dấu).
+ *
+ * Việc so khớp được thực hiện trên bản chuẩn hóa của TextNormalizer; vì chuẩn hóa
+ * giữ nguyên độ dài so với dạng NFC nên vị trí khớp được dùng trực tiếp trên dạng NFC
+ * của chuỗi gốc (đoạn trích cũng được trả về ở dạng NFC).
+ */
+public final class SnippetBuilder {
+    private static final String ELLIPSIS = "…";
+    private static final int CONTEXT_BEFORE = 20;
+
+    private SnippetBuilder() {
+    }
+
+    /**
+     * Trả về đoạn trích của trường đầu tiên có chứa một trong các từ (khớp đầu từ),
+     * hoặc null nếu không trường nào khớp.
+     *
+     * @param fields các trường văn bản gốc theo thứ tự ưu tiên (null được bỏ qua)
+     * @param normalizedTokens các từ tìm kiếm đã chuẩn hóa
+     * @param maxLength độ dài tối đa của đoạn trích (không tính dấu đánh dấu)
+     */
+    public static String build(List<String> fields, List<String> normalizedTokens, int maxLength) {
+        for (String original : fields) {
+            if (original == null || original.isEmpty()) {
+                continue;
+            }
+
+            String field = TextNormalizer.toNfc(original);
+            String normalized = TextNormalizer.normalize(field);
+            int firstMatch = findNextMatch(normalized, normalizedTokens, 0)[0];
+            if (firstMatch < 0) {
+                continue;
+            }
+
+            int start = Math.max(0, firstMatch - CONTEXT_BEFORE);
+            while (start > 0 && start < firstMatch && Character.isLetterOrDigit(field.charAt(start - 1))) {
+                start++;
+            }
+            int end = Math.min(field.length(), start + maxLength);
+
+            StringBuilder sb = new StringBuilder();
+            if (start > 0) {
+                sb.append(ELLIPSIS);
+            }
+
+            int position = start;
+            while (position < end) {
+                int[] match = findNextMatch(normalized, normalizedTokens, position);
+                if (match[0] < 0 || match[0] >= end) {
+                    break;
+                }
+                int matchEnd = Math.min(end, match[0] + match[1]);
+                sb.append(field, position, match[0])
+                  .append('[').append(field, match[0], matchEnd).append(']');
+                position = matchEnd;
+            }
+            sb.append(field, position, end);
+
+            if (end < field.length()) {
+                sb.append(ELLIPSIS);
+            }
+            return sb.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Tìm vị trí sớm nhất (từ "from") mà một token xuất hiện ở đầu từ.
+     * Trả về {vị trí, độ dài} hoặc {-1, 0}.
+     */
+    private static int[] findNextMatch(String normalized, List<String> tokens, int from) {
+        int bestIndex = -1;
+        int bestLength = 0;
+        for (String token : tokens) {
+            int index = normalized.indexOf(token, from);
+            while (index >= 0 && index > 0 && Character.isLetterOrDigit(normalized.charAt(index - 1))) {
+                index = normalized.indexOf(token, index + 1);
+            }
+            if (index >= 0 && (bestIndex < 0 || index < bestIndex
+                    || (index == bestIndex && token.length() > bestLength))) {
+                bestIndex = index;
+                bestLength = token.length();
+            }
+        }
+        return new int[] { bestIndex, bestLength };
+    }
+}
@@ -0,0 +1,70 @@
+package com.calendar.util;
+
+import java.text.Normalizer;
+
+/**
+ * Chuẩn hóa văn bản tiếng Việt cho tìm kiếm: bỏ dấu (kể cả đ/Đ -> d) và chuyển về chữ thường.
+ *
+ * Đầu vào được đưa về dạng dựng sẵn (NFC) trước, nên chữ gõ ở dạng tổ hợp (Unikey
+ * "Unicode tổ hợp", văn bản dán từ macOS) cho cùng kết quả. Sau bước đó việc chuẩn hóa
+ * giữ nguyên độ dài (mỗi ký tự của toNfc(text) ứng với đúng một ký tự kết quả), nên vị trí
+ * tìm thấy trong chuỗi đã chuẩn hóa cũng là vị trí trong toNfc(text).
+ */
+public final class TextNormalizer {
+    // Bảng tra cho các ký tự Latin (gồm khối Latin Extended Additional chứa chữ Việt có dấu)
+    private static final int TABLE_SIZE = 0x2000;
+    private static final char[] FOLD_TABLE = buildFoldTable();
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * "Công Việc Đầu Tuần" -> "cong viec dau tuan". Trả về null nếu đầu vào null.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        char[] chars = toNfc(text).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Dạng NFC của văn bản (dấu tổ hợp được ghép vào chữ), dùng cho dữ liệu lưu trong database.
+     * Trả về chính chuỗi đầu vào nếu đã là NFC.
+     */
+    public static String toNfc(String text) {
+        if (text == null || Normalizer.isNormalized(text, Normalizer.Form.NFC)) {
+            return text;
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFC);
+    }
+
+    public static char fold(char c) {
+        if (c < TABLE_SIZE) {
+            return FOLD_TABLE[c];
+        }
+        return Character.isSurrogate(c) ? c : Character.toLowerCase(c);
+    }
+
+    private static char[] buildFoldTable() {
+        char[] table = new char[TABLE_SIZE];
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            char folded = c;
+            if (c == 'đ' || c == 'Đ') {
+                folded = 'd';
+            } else if (Character.isLetter(c)) {
+                // Tách ký tự gốc và dấu, giữ lại ký tự gốc
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                folded = decomposed.charAt(0);
+            }
+            char lower = Character.toLowerCase(folded);
+            table[c] = Character.isSurrogate(lower) ? folded : lower;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,90 @@
+package com.calendar.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.calendar.database.DatabaseManager;
+import com.calendar.model.User;
+
+/**
+ * So sánh đăng nhập tuần tự (UserService) với đăng nhập đồng thời qua AsyncUserService.
+ * Số lần đăng nhập bằng hai lần số nhân CPU; mỗi lần chạy BCrypt với work factor đã hiệu chỉnh.
+ * In ra mức tăng tốc; trên máy từ 2 nhân trở lên, thất bại (mã thoát 1) nếu tăng tốc
+ * dưới MIN_SPEEDUP, tức công việc không thực sự chạy song song.
+ *
+ * Chạy trên database tạm, không đụng file của ứng dụng:
+ * mvn -B test-compile, rồi
+ * java -cp target/classes:target/test-classes:&lt;dependency&gt; com.calendar.service.ConcurrentLoginBenchmark
+ */
+public class ConcurrentLoginBenchmark {
+    private static final double MIN_SPEEDUP = 1.5;
+
+    public static void main(String[] args) throws Exception {
+        Path database = Files.createTempFile("login-bench", ".db");
+        System.setProperty("calendar.db.url", "jdbc:sqlite:" + database);
+        boolean passed;
+        try {
+            passed = run();
+        } finally {
+            DatabaseManager.getInstance().closeConnection();
+            deleteDatabase(database);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int logins = 2 * cores;
+        UserService userService = new UserService();
+        AsyncUserService asyncUserService = new AsyncUserService(userService);
+
+        System.out.println("Số nhân CPU: " + cores + ", thread xác thực: " + AsyncUserService.getPoolSize()
+            + ", work factor BCrypt: " + asyncUserService.warmUp().join());
+        for (int i = 0; i < logins; i++) {
+            if (!userService.register("bench" + i, "password" + i, "bench" + i + "@example.com")) {
+                throw new IllegalStateException("Không tạo được user bench" + i);
+            }
+        }
+        // Làm nóng JIT và đường đọc database
+        userService.login("bench0", "password0");
+
+        long started = System.nanoTime();
+        for (int i = 0; i < logins; i++) {
+            requireUser(userService.login("bench" + i, "password" + i));
+        }
+        long sequentialNanos = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        for (int i = 0; i < logins; i++) {
+            futures.add(asyncUserService.login("bench" + i, "password" + i));
+        }
+        for (CompletableFuture<User> future : futures) {
+            requireUser(future.join());
+        }
+        long concurrentNanos = System.nanoTime() - started;
+
+        double speedup = (double) sequentialNanos / concurrentNanos;
+        boolean passed = cores < 2 || speedup >= MIN_SPEEDUP;
+        System.out.printf("%s: %d lần đăng nhập, tuần tự %d ms, đồng thời %d ms, tăng tốc %.2fx%s%n",
+            passed ? "ĐẠT" : "KHÔNG ĐẠT", logins, sequentialNanos / 1_000_000, concurrentNanos / 1_000_000, speedup,
+            cores < 2 ? " (chỉ 1 nhân, không kiểm tra tăng tốc)" : " (tối thiểu " + MIN_SPEEDUP + "x)");
+        return passed;
+    }
+
+    private static void requireUser(User user) {
+        if (user == null) {
+            throw new IllegalStateException("Đăng nhập thất bại trong benchmark");
+        }
+    }
+
+    private static void deleteDatabase(Path database) throws IOException {
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(database + suffix));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.calendar.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.calendar.database.DatabaseManager;
+import com.calendar.model.Schedule;
+
+/**
+ * Kiểm tra tải của ReminderEngine: nạp 100k nhắc nhở của nhiều user, đăng ký mọi user và
+ * đo độ trễ từ thời điểm nhắc đến lúc listener được gọi. Thất bại (mã thoát 1) nếu có
+ * nhắc nhở không được phát hoặc độ trễ lớn nhất từ 1 giây trở lên.
+ *
+ * Chạy trên database tạm, không đụng file của ứng dụng:
+ * mvn -B test-compile, rồi
+ * java -cp target/classes:target/test-classes:&lt;dependency&gt; com.calendar.service.ReminderEngineLoadBenchmark [số nhắc nhở] [số user]
+ */
+public class ReminderEngineLoadBenchmark {
+    private static final long MAX_LATENESS_MILLIS = 1000;
+    // Thời gian nhắc được rải đều trong khoảng này, bắt đầu sau lúc nạp xong
+    private static final int SPREAD_SECONDS = 30;
+    private static final int LEAD_SECONDS = 60;
+
+    public static void main(String[] args) throws Exception {
+        int reminders = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Path database = Files.createTempFile("reminder-load", ".db");
+        System.setProperty("calendar.db.url", "jdbc:sqlite:" + database);
+        boolean passed;
+        try {
+            passed = run(reminders, users);
+        } finally {
+            ReminderEngine.shutdown();
+            DatabaseManager.getInstance().closeConnection();
+            deleteDatabase(database);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run(int reminders, int users) throws Exception {
+        seedUsers(users);
+
+        LocalDateTime firstReminder = LocalDateTime.now().withNano(0).plusSeconds(LEAD_SECONDS);
+        List<Schedule> schedules = new ArrayList<>(reminders);
+        for (int i = 0; i < reminders; i++) {
+            LocalDateTime remindAt = firstReminder.plusSeconds(i % SPREAD_SECONDS);
+            Schedule schedule = new Schedule(1 + i % users, "Nhắc " + i, "", remindAt.plusMinutes(1), remindAt.plusHours(1));
+            schedule.setNote("");
+            schedule.setCategory("Công việc");
+            schedule.setReminder(true);
+            schedule.setReminderMinutes(1);
+            schedules.add(schedule);
+        }
+        long started = System.currentTimeMillis();
+        new ScheduleService().addSchedules(schedules);
+        System.out.println("Đã thêm " + reminders + " lịch trong " + (System.currentTimeMillis() - started) + " ms");
+
+        ReminderEngine engine = ReminderEngine.getInstance();
+        AtomicLong received = new AtomicLong();
+        AtomicLong maxLateness = new AtomicLong();
+        started = System.currentTimeMillis();
+        for (int userId = 1; userId <= users; userId++) {
+            engine.subscribe(userId, schedule -> {
+                long remindAtMillis = schedule.getReminderTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                maxLateness.accumulateAndGet(System.currentTimeMillis() - remindAtMillis, Math::max);
+                received.incrementAndGet();
+            });
+        }
+        while (engine.getPendingCount() < reminders && System.currentTimeMillis() - started < LEAD_SECONDS * 1000L) {
+            Thread.sleep(50);
+        }
+        System.out.println("Đăng ký " + users + " user, " + engine.getPendingCount() + " nhắc nhở chờ phát sau "
+            + (System.currentTimeMillis() - started) + " ms");
+        if (LocalDateTime.now().isAfter(firstReminder)) {
+            System.out.println("CẢNH BÁO: nạp xong sau thời điểm nhắc đầu tiên, độ trễ đo được gồm cả thời gian nạp");
+        }
+
+        LocalDateTime deadline = firstReminder.plusSeconds(SPREAD_SECONDS + 10);
+        while (received.get() < reminders && LocalDateTime.now().isBefore(deadline)) {
+            Thread.sleep(100);
+        }
+
+        boolean passed = received.get() == reminders && maxLateness.get() < MAX_LATENESS_MILLIS;
+        System.out.println((passed ? "ĐẠT" : "KHÔNG ĐẠT") + ": đã phát " + received.get() + "/" + reminders
+            + ", độ trễ lớn nhất " + maxLateness.get() + " ms (giới hạn " + MAX_LATENESS_MILLIS + " ms)");
+        return passed;
+    }
+
+    private static void seedUsers(int users) throws SQLException {
+        DatabaseManager.getInstance().executeInTransaction(conn -> {
+            String sql = "INSERT INTO users (username, password, email, created_at) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 1; i <= users; i++) {
+                    pstmt.setString(1, "load" + i);
+                    pstmt.setString(2, "-");
+                    pstmt.setString(3, "load" + i + "@example.com");
+                    pstmt.setString(4, LocalDateTime.now().toString());
+                    pstmt.addBatch();
+                }
+                return pstmt.executeBatch().length;
+            }
+        });
+    }
+
+    private static void deleteDatabase(Path database) throws IOException {
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(database + suffix));
+        }
+    }
+}